@@ -0,0 +1,285 @@
+package qe;
+
+import com.google.common.collect.ImmutableMap;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.contract.data.CodecType;
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+// Picks a codec per event out of a preference-ordered list of candidates. The serializer registers one codec type
+// per SerializerConfig, so this codec registers its own ("application/x-adaptive") and prefixes every event with a
+// 1-byte tag: 0 for uncompressed, otherwise tag(name) of the codec used, which depends on the codec's name only.
+// The registry keeps the first application/x-adaptive registration of a group, so nothing a writer's candidate list
+// decides may travel in the codec type; it only carries the candidates' own properties, which must not conflict.
+//
+// For each event:
+//   - below minSize bytes it is written uncompressed ("belowThreshold")
+//   - otherwise it goes to the first candidate whose compression ratio over its last `window` events is at least
+//     minRatio ("ratio"); a candidate with fewer than `window` samples is assumed to qualify
+//   - if no candidate qualifies it is written uncompressed ("incompressible"), except that every probeEvery-th such
+//     event is compressed with the next candidate in turn ("probe") so a candidate can recover when the data changes
+//   - compressed output that is not smaller than the input is discarded and the event written uncompressed ("expanded")
+// getCounters() reports how often each codec was chosen and why.
+public class AdaptiveCodec implements Codec {
+    public static final String NAME = "application/x-adaptive";
+    private static final byte UNCOMPRESSED = 0;
+    private static final String NONE = "none";
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final List<Codec> candidates;
+    private final int[] tags;
+    // indexed by tag
+    private final Codec[] decoders = new Codec[256];
+    private final CodecType codecType;
+    private final RatioWindow[] windows;
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final AtomicLong unqualified = new AtomicLong();
+    private int minSize = 256;
+    private double minRatio = 1.1;
+    private int probeEvery = 100;
+
+    // candidates in order of preference, at most 255 and with distinct tags; decoding needs every codec the writer
+    // may have used, in any order
+    public AdaptiveCodec(List<Codec> candidates) {
+        this(candidates, 32);
+    }
+
+    public AdaptiveCodec(List<Codec> candidates, int window) {
+        if (candidates.isEmpty() || candidates.size() > 255) {
+            throw new IllegalArgumentException("Between 1 and 255 candidate codecs required, got " + candidates.size());
+        }
+        this.candidates = new ArrayList<>(candidates);
+        this.tags = new int[candidates.size()];
+        this.windows = new RatioWindow[candidates.size()];
+        Map<String, String> properties = new TreeMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Codec codec = candidates.get(i);
+            tags[i] = tag(codec.getName());
+            Codec clash = decoders[tags[i]];
+            if (clash != null && !clash.getName().equals(codec.getName())) {
+                throw new IllegalArgumentException(codec.getName() + " and " + clash.getName() + " share tag " + tags[i]);
+            }
+            decoders[tags[i]] = codec;
+            windows[i] = new RatioWindow(window);
+            merge(properties, codec.getName(), codec.getCodecType().getProperties());
+        }
+        this.codecType = new CodecType(NAME, ImmutableMap.copyOf(properties));
+    }
+
+    // 1..255 from the CRC-32 of the name, the same for every writer and reader whatever their candidate lists
+    static int tag(String codecName) {
+        CRC32 crc = new CRC32();
+        crc.update(codecName.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % 255) + 1;
+    }
+
+    // adds a candidate's codec type properties, refusing a key another candidate set to a different value
+    static void merge(Map<String, String> properties, String codecName, @Nullable Map<String, String> codecProperties) {
+        if (codecProperties == null) {
+            return;
+        }
+        for (Map.Entry<String, String> property : codecProperties.entrySet()) {
+            String previous = properties.putIfAbsent(property.getKey(), property.getValue());
+            if (previous != null && !previous.equals(property.getValue())) {
+                throw new IllegalArgumentException(codecName + " sets codec type property " + property.getKey() + " to "
+                        + property.getValue() + ", another candidate to " + previous);
+            }
+        }
+    }
+
+    // The available codecs that are registered with the group, in the group's registration order, so the group's
+    // first codec type is preferred and the others are the fallbacks.
+    public static AdaptiveCodec forGroup(SchemaRegistryClient client, String groupId, Collection<Codec> available) {
+        Map<String, Codec> byName = new HashMap<>();
+        for (Codec codec : available) {
+            byName.put(codec.getName(), codec);
+        }
+        List<Codec> candidates = new ArrayList<>();
+        for (CodecType registered : client.getCodecTypes(groupId)) {
+            Codec codec = byName.get(registered.getName());
+            if (codec != null && !candidates.contains(codec)) {
+                candidates.add(codec);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("None of " + byName.keySet() + " is registered with group " + groupId);
+        }
+        return new AdaptiveCodec(candidates);
+    }
+
+    public AdaptiveCodec minSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    public AdaptiveCodec minRatio(double minRatio) {
+        this.minRatio = minRatio;
+        return this;
+    }
+
+    public AdaptiveCodec probeEvery(int probeEvery) {
+        this.probeEvery = probeEvery;
+        return this;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CodecType getCodecType() {
+        return codecType;
+    }
+
+    @Override
+    public void encode(ByteBuffer data, OutputStream bos) throws IOException {
+        int length = data.remaining();
+        if (length < minSize) {
+            writeUncompressed(data, bos, "belowThreshold");
+            return;
+        }
+        int chosen = -1;
+        String reason = "ratio";
+        for (int i = 0; i < windows.length; i++) {
+            if (windows[i].qualifies(minRatio)) {
+                chosen = i;
+                break;
+            }
+        }
+        if (chosen < 0) {
+            long n = unqualified.incrementAndGet();
+            if (probeEvery <= 0 || n % probeEvery != 0) {
+                writeUncompressed(data, bos, "incompressible");
+                return;
+            }
+            chosen = (int) ((n / probeEvery) % windows.length);
+            reason = "probe";
+        }
+        Codec codec = candidates.get(chosen);
+        Scratch scratch = SCRATCH.get();
+        scratch.reset();
+        codec.encode(data.duplicate(), scratch);
+        windows[chosen].add(length, scratch.size());
+        if (scratch.size() >= length) {
+            writeUncompressed(data, bos, "expanded");
+            return;
+        }
+        bos.write(tags[chosen]);
+        scratch.writeTo(bos);
+        data.position(data.limit());
+        count(codec.getName(), reason);
+    }
+
+    private void writeUncompressed(ByteBuffer data, OutputStream bos, String reason) throws IOException {
+        bos.write(UNCOMPRESSED);
+        if (data.hasArray()) {
+            bos.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+            byte[] chunk = SCRATCH.get().chunk();
+            while (data.hasRemaining()) {
+                int n = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, n);
+                bos.write(chunk, 0, n);
+            }
+        }
+        data.position(data.limit());
+        count(NONE, reason);
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer data, Map<String, String> properties) throws IOException {
+        if (!data.hasRemaining()) {
+            throw new IOException(NAME + ": missing codec tag");
+        }
+        int tag = data.get() & 0xFF;
+        if (tag == UNCOMPRESSED) {
+            ByteBuffer result = data.slice();
+            data.position(data.limit());
+            return result;
+        }
+        Codec decoder = decoders[tag];
+        if (decoder == null) {
+            List<String> known = new ArrayList<>();
+            candidates.forEach(codec -> known.add(codec.getName()));
+            throw new IOException(NAME + ": no decoder for codec tag " + tag + ", known " + known);
+        }
+        return decoder.decode(data, properties);
+    }
+
+    private void count(String codec, String reason) {
+        counters.computeIfAbsent(codec + "/" + reason, k -> new LongAdder()).increment();
+    }
+
+    // events written per "codec/reason", e.g. "application/x-lz4/ratio" or "none/incompressible"
+    public Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
+    }
+
+    // input bytes / output bytes over the codec's window, NaN before its first sample
+    public double getRatio(String codecName) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).getName().equals(codecName)) {
+                return windows[i].ratio();
+            }
+        }
+        throw new IllegalArgumentException("Unknown codec " + codecName);
+    }
+
+    private static final class RatioWindow {
+        private final int[] inputs;
+        private final int[] outputs;
+        private long inputSum;
+        private long outputSum;
+        private int next;
+        private int size;
+
+        private RatioWindow(int window) {
+            this.inputs = new int[window];
+            this.outputs = new int[window];
+        }
+
+        private synchronized void add(int input, int output) {
+            if (size == inputs.length) {
+                inputSum -= inputs[next];
+                outputSum -= outputs[next];
+            } else {
+                size++;
+            }
+            inputs[next] = input;
+            outputs[next] = output;
+            inputSum += input;
+            outputSum += output;
+            next = (next + 1) % inputs.length;
+        }
+
+        private synchronized boolean qualifies(double minRatio) {
+            return size < inputs.length || inputSum >= minRatio * outputSum;
+        }
+
+        private synchronized double ratio() {
+            return size == 0 ? Double.NaN : (double) inputSum / outputSum;
+        }
+    }
+
+    private static final class Scratch extends ByteArrayOutputStream {
+        private final byte[] chunk = new byte[8 * 1024];
+
+        private byte[] chunk() {
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveCodecTests {
+    private static final Map<String, String> NO_PROPERTIES = Collections.emptyMap();
+
+    @Test
+    public void verifySmallEventsAreNotCompressed() throws IOException {
+        AdaptiveCodec codec = new AdaptiveCodec(Arrays.asList(new Lz4Codec(), new ZstdCodec()), 4).minSize(256);
+        byte[] payload = CodecBenchmark.payload("json", 200);
+        byte[] encoded = encode(codec, ByteBuffer.wrap(payload));
+        assertEquals(payload.length + 1, encoded.length);
+        assertArrayEquals(payload, decode(codec, encoded, NO_PROPERTIES));
+        assertEquals(Long.valueOf(1), codec.getCounters().get("none/belowThreshold"));
+    }
+
+    @Test
+    public void verifyCompressibleEventsUseThePreferredCodec() throws IOException {
+        AdaptiveCodec codec = new AdaptiveCodec(Arrays.asList(new Lz4Codec(), new ZstdCodec()), 4);
+        for (int i = 0; i < 10; i++) {
+            byte[] payload = CodecBenchmark.payload("json", 4096 + i);
+            byte[] encoded = encode(codec, ByteBuffer.wrap(payload));
+            assertTrue(encoded.length < payload.length);
+            assertArrayEquals(payload, decode(codec, encoded, NO_PROPERTIES));
+        }
+        assertEquals(Long.valueOf(10), codec.getCounters().get("application/x-lz4/ratio"));
+        assertTrue(codec.getRatio("application/x-lz4") > 2);
+        assertTrue(Double.isNaN(codec.getRatio("application/x-zstd")));
+    }
+
+    @Test
+    public void verifyIncompressibleEventsSkipCompressionAndProbe() throws IOException {
+        AdaptiveCodec codec = new AdaptiveCodec(Collections.singletonList(new Lz4Codec()), 4).probeEvery(10);
+        Random random = new Random(42);
+        for (int i = 0; i < 44; i++) {
+            byte[] payload = new byte[4096];
+            random.nextBytes(payload);
+            byte[] encoded = encode(codec, ByteBuffer.wrap(payload));
+            assertArrayEquals(payload, decode(codec, encoded, NO_PROPERTIES));
+        }
+        // 4 events fill the window and expand, then 36 are skipped apart from every 10th, which is probed and expands
+        Map<String, Long> counters = codec.getCounters();
+        assertEquals(Long.valueOf(4 + 4), counters.get("none/expanded"));
+        assertEquals(Long.valueOf(36), counters.get("none/incompressible"));
+        assertNull(counters.get("application/x-lz4/ratio"));
+    }
+
+    @Test
+    public void verifyFallbackToNextCandidate() throws IOException {
+        // the rotate codec never shrinks anything, so once its window is full lz4 takes over
+        AdaptiveCodec codec = new AdaptiveCodec(Arrays.asList(new RotateCodec(), new Lz4Codec()), 4);
+        for (int i = 0; i < 10; i++) {
+            byte[] payload = CodecBenchmark.payload("text", 4096);
+            assertArrayEquals(payload, decode(codec, encode(codec, ByteBuffer.wrap(payload)), NO_PROPERTIES));
+        }
+        assertEquals(Long.valueOf(4), codec.getCounters().get("none/expanded"));
+        assertEquals(Long.valueOf(6), codec.getCounters().get("application/x-lz4/ratio"));
+        assertEquals(1.0, codec.getRatio("mycompression"), 0.0);
+    }
+
+    @Test
+    public void verifyTagsDoNotDependOnCandidateOrder() throws IOException {
+        // writers with different candidate lists share the group's one application/x-adaptive codec type
+        AdaptiveCodec zstdFirst = new AdaptiveCodec(Arrays.asList(new ZstdCodec(), new Lz4Codec()));
+        AdaptiveCodec lz4Only = new AdaptiveCodec(Collections.singletonList(new Lz4Codec()));
+        AdaptiveCodec reader = new AdaptiveCodec(Arrays.asList(new Lz4Codec(), new RotateCodec(), new ZstdCodec()));
+        byte[] payload = CodecBenchmark.payload("json", 8192);
+        ByteBuffer direct = ByteBuffer.allocateDirect(payload.length);
+        direct.put(payload).flip();
+        byte[] encoded = encode(zstdFirst, direct);
+        assertFalse(direct.hasRemaining());
+        assertEquals(AdaptiveCodec.tag(ZstdCodec.NAME), encoded[0] & 0xFF);
+        assertArrayEquals(payload, decode(reader, encoded, NO_PROPERTIES));
+        encoded = encode(lz4Only, ByteBuffer.wrap(payload));
+        assertEquals(AdaptiveCodec.tag(Lz4Codec.NAME), encoded[0] & 0xFF);
+        assertArrayEquals(payload, decode(reader, encoded, NO_PROPERTIES));
+
+        try {
+            decode(lz4Only, encode(zstdFirst, ByteBuffer.wrap(payload)), NO_PROPERTIES);
+            fail("decode without a zstd decoder");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("tag " + AdaptiveCodec.tag(ZstdCodec.NAME)));
+        }
+    }
+
+    @Test
+    public void verifyConflictingCandidatePropertiesAreRejected() {
+        Map<String, String> properties = new TreeMap<>();
+        AdaptiveCodec.merge(properties, "a", Collections.singletonMap("level", "3"));
+        AdaptiveCodec.merge(properties, "b", Collections.singletonMap("level", "3"));
+        AdaptiveCodec.merge(properties, "b", null);
+        try {
+            AdaptiveCodec.merge(properties, "c", Collections.singletonMap("level", "19"));
+            fail("conflicting property should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("level"));
+        }
+        assertEquals(Collections.singletonMap("level", "3"), properties);
+    }
+
+    private static byte[] encode(Codec codec, ByteBuffer data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(data, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(Codec codec, byte[] encoded, Map<String, String> properties) throws IOException {
+        ByteBuffer decoded = codec.decode(ByteBuffer.wrap(encoded), properties);
+        byte[] bytes = new byte[decoded.remaining()];
+        decoded.get(bytes);
+        return bytes;
+    }
+}
@@ -8,7 +8,6 @@ import io.pravega.client.admin.impl.ReaderGroupManagerImpl;
 import io.pravega.client.admin.impl.StreamManagerImpl;
 import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
 import io.pravega.client.stream.*;
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 import io.pravega.schemaregistry.client.SchemaRegistryClient;
 import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
 import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
@@ -17,7 +16,6 @@ import io.pravega.schemaregistry.contract.transform.ModelHelper;
 import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
 import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
 import io.pravega.schemaregistry.serializers.SerializerFactory;
-import io.pravega.shared.NameUtils;
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
@@ -40,7 +38,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class AvroCompatibilityBasicTests {
-    private static String schemaRegistryURI = "http://10.243.41.92:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.92:9092");
     private static String controllerURI = "tcp://10.243.41.62:9090";
     private static ClientConfig clientConfig;
     private static SchemaRegistryClient schemaRegistryClient;
@@ -54,10 +52,7 @@ public class AvroCompatibilityBasicTests {
         clientConfig = ClientConfig.builder().controllerURI(URI.create(controllerURI)).build();
         schemaRegistryClient = SchemaRegistryClientFactory.withDefaultNamespace(SchemaRegistryClientConfig.builder().schemaRegistryUri(URI.create(schemaRegistryURI)).build());
 
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        client = ClientBuilder.newClient(clientConfig);
+        client = RestClients.shared();
     }
 
     @AfterClass
@@ -117,19 +112,11 @@ public class AvroCompatibilityBasicTests {
         }
 
         boolean avroExceptionFound = false;
-        EventStreamReader<Object> reader1 = createReader(scope,stream,"r1",groupId,schema0);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            try {
-                event = reader1.readNextEvent(10000);
-            } catch(AvroTypeException e){
-                avroExceptionFound = true;
-                break;
-            }
+        try {
+            createDrain(scope,stream,"r1",groupId,schema0).drain(objectList::add);
+        } catch(AvroTypeException e){
+            avroExceptionFound = true;
         }
         assertEquals(5, objectList.size());
         assertTrue(avroExceptionFound);
@@ -175,35 +162,27 @@ public class AvroCompatibilityBasicTests {
             System.out.println("Written event: "+record);
         }
 
-        EventStreamReader<Object> reader = createReader(scope,stream,"r1",groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader.readNextEvent(10000);
-        }
+        createDrain(scope,stream,"r1",groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(5, objectList.size());
         GenericRecord record = new GenericData.Record(latestSchema.getSchema());
         record.put("a","writerA-"+4);
         assertEquals(record.toString(), objectList.get(4).toString());
     }
 
-    private EventStreamReader<Object> createReader(String scope, String stream, String readerId, String groupId, AvroSchema<Object> schema) {
+    private EventDrain<Object> createDrain(String scope, String stream, String readerId, String groupId, AvroSchema<Object> schema) {
         SerializerConfig serializerConfig = SerializerConfig.builder()
                 .groupId(groupId)
                 .registryClient(schemaRegistryClient)
                 .build();
 
-        Serializer<Object> deserializer = SerializerFactory.avroGenericDeserializer(serializerConfig, schema);
+        MeteredSerializer<Object> deserializer = new MeteredSerializer<>(SerializerFactory.avroGenericDeserializer(serializerConfig, schema));
         EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
         ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
         String rg = "rg" + scope + stream;
-        readerGroupManager.createReaderGroup(rg,
-                ReaderGroupConfig.builder().stream(NameUtils.getScopedStreamName(scope, stream)).disableAutomaticCheckpoints().build());
+        readerGroupManager.createReaderGroup(rg, EventDrain.boundedToTail(clientConfig, scope, stream));
 
-        return clientFactory.createReader(readerId, rg, deserializer, ReaderConfig.builder().build());
+        return new EventDrain<>(clientFactory.createReader(readerId, rg, deserializer, ReaderConfig.builder().build()), deserializer);
     }
 
     private EventStreamWriter<Object> createWriter(String scope, String stream, String groupId, AvroSchema<Object> schema) {
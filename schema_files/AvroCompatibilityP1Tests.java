@@ -8,7 +8,6 @@ import io.pravega.client.admin.impl.ReaderGroupManagerImpl;
 import io.pravega.client.admin.impl.StreamManagerImpl;
 import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
 import io.pravega.client.stream.*;
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 import io.pravega.schemaregistry.client.SchemaRegistryClient;
 import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
 import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
@@ -17,7 +16,6 @@ import io.pravega.schemaregistry.contract.transform.ModelHelper;
 import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
 import io.pravega.schemaregistry.serializer.avro.impl.AvroSerializerFactory;
 import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
-import io.pravega.shared.NameUtils;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.junit.AfterClass;
@@ -38,7 +36,7 @@ import static javax.ws.rs.core.Response.Status.*;
 import static org.junit.Assert.*;
 
 public class AvroCompatibilityP1Tests {
-    private static String schemaRegistryURI = "http://10.243.41.92:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.92:9092");
     private static String controllerURI = "tcp://10.243.41.62:9090";
     private static ClientConfig clientConfig;
     private static SchemaRegistryClient schemaRegistryClient;
@@ -52,10 +50,7 @@ public class AvroCompatibilityP1Tests {
         clientConfig = ClientConfig.builder().controllerURI(URI.create(controllerURI)).build();
         schemaRegistryClient = SchemaRegistryClientFactory.withDefaultNamespace(SchemaRegistryClientConfig.builder().schemaRegistryUri(URI.create(schemaRegistryURI)).build());
 
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        client = ClientBuilder.newClient(clientConfig);
+        client = RestClients.shared();
     }
 
     @AfterClass
@@ -116,15 +111,8 @@ public class AvroCompatibilityP1Tests {
         }
 
         assertTrue(schemaRegistryClient.canReadUsing(groupId,latestSchema.getSchemaInfo()));
-        EventStreamReader<Object> reader1 = createReader(scope,stream,groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader1.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(10, objectList.size());
         GenericRecord record0 = new GenericData.Record(latestSchema.getSchema());
         record0.put("a","writer1-"+0);
@@ -201,15 +189,8 @@ public class AvroCompatibilityP1Tests {
         }
 
         assertTrue(schemaRegistryClient.canReadUsing(groupId,latestSchema.getSchemaInfo()));
-        EventStreamReader<Object> reader1 = createReader(scope,stream,groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader1.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(15, objectList.size());
         GenericRecord record0 = new GenericData.Record(latestSchema.getSchema());
         record0.put("a","writer1-"+0);
@@ -259,15 +240,8 @@ public class AvroCompatibilityP1Tests {
             System.out.println("Written event: "+record);
         }
         assertTrue(schemaRegistryClient.canReadUsing(groupId,latestSchema.getSchemaInfo()));
-        EventStreamReader<Object> reader1 = createReader(scope,stream,groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader1.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(5, objectList.size());
         GenericRecord record0 = new GenericData.Record(latestSchema.getSchema());
         record0.put("a","writer-"+0);
@@ -276,15 +250,8 @@ public class AvroCompatibilityP1Tests {
 
         AvroSchema<Object> schema0 = AvroSchema.from(schemaRegistryClient.getSchemaVersions(groupId,null).get(0).getSchemaInfo());
         assertTrue(schemaRegistryClient.canReadUsing(groupId,schema0.getSchemaInfo()));
-        EventStreamReader<Object> reader2 = createReader(scope,stream,groupId,schema0);
         List<Object> objectList2 = new ArrayList<>();
-        EventRead<Object> event2 = reader2.readNextEvent(10000);
-        while (event2.getEvent() != null || event2.isCheckpoint()) {
-            Object obj = event2.getEvent();
-            System.out.println("event read:" + obj);
-            objectList2.add(obj);
-            event2 = reader2.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,schema0).drain(objectList2::add).print(System.out);
         assertEquals(5, objectList2.size());
         record0 = new GenericData.Record(schema0.getSchema());
         record0.put("a","writer-"+0);
@@ -335,15 +302,8 @@ public class AvroCompatibilityP1Tests {
             System.out.println("Written event: "+record);
         }
         assertTrue(schemaRegistryClient.canReadUsing(groupId,latestSchema.getSchemaInfo()));
-        EventStreamReader<Object> reader1 = createReader(scope,stream,groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader1.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(5, objectList.size());
         GenericRecord record0 = new GenericData.Record(latestSchema.getSchema());
         record0.put("a","writer-"+0);
@@ -353,15 +313,8 @@ public class AvroCompatibilityP1Tests {
 
         AvroSchema<Object> schema1 = AvroSchema.from(schemaRegistryClient.getSchemaVersions(groupId,null).get(1).getSchemaInfo());
         assertTrue(schemaRegistryClient.canReadUsing(groupId,schema1.getSchemaInfo()));
-        EventStreamReader<Object> reader2 = createReader(scope,stream,groupId,schema1);
         List<Object> objectList2 = new ArrayList<>();
-        EventRead<Object> event2 = reader2.readNextEvent(10000);
-        while (event2.getEvent() != null || event2.isCheckpoint()) {
-            Object obj = event2.getEvent();
-            System.out.println("event read:" + obj);
-            objectList2.add(obj);
-            event2 = reader2.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,schema1).drain(objectList2::add).print(System.out);
         assertEquals(5, objectList2.size());
         record0 = new GenericData.Record(schema1.getSchema());
         record0.put("a","writer-"+0);
@@ -370,15 +323,8 @@ public class AvroCompatibilityP1Tests {
 
         AvroSchema<Object> schema0 = AvroSchema.from(schemaRegistryClient.getSchemaVersions(groupId,null).get(0).getSchemaInfo());
         assertTrue(schemaRegistryClient.canReadUsing(groupId,schema0.getSchemaInfo()));
-        EventStreamReader<Object> reader3 = createReader(scope,stream,groupId,schema0);
         List<Object> objectList3 = new ArrayList<>();
-        EventRead<Object> event3 = reader3.readNextEvent(10000);
-        while (event3.getEvent() != null || event3.isCheckpoint()) {
-            Object obj = event3.getEvent();
-            System.out.println("event read:" + obj);
-            objectList3.add(obj);
-            event3 = reader3.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,schema0).drain(objectList3::add).print(System.out);
         assertEquals(5, objectList3.size());
         record0 = new GenericData.Record(schema0.getSchema());
         record0.put("a","writer-"+0);
@@ -434,15 +380,8 @@ public class AvroCompatibilityP1Tests {
         }
 
         assertTrue(schemaRegistryClient.canReadUsing(groupId,latestSchema.getSchemaInfo()));
-        EventStreamReader<Object> reader1 = createReader(scope,stream,groupId,latestSchema);
         List<Object> objectList = new ArrayList<>();
-        EventRead<Object> event = reader1.readNextEvent(10000);
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            Object obj = event.getEvent();
-            System.out.println("event read:" + obj);
-            objectList.add(obj);
-            event = reader1.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,latestSchema).drain(objectList::add).print(System.out);
         assertEquals(10, objectList.size());
         GenericRecord record0 = new GenericData.Record(latestSchema.getSchema());
         record0.put("a","writer1-"+0);
@@ -454,15 +393,8 @@ public class AvroCompatibilityP1Tests {
         assertEquals(record9.toString(), objectList.get(9).toString());
 
         assertTrue(schemaRegistryClient.canReadUsing(groupId,schema0.getSchemaInfo()));
-        EventStreamReader<Object> reader2 = createReader(scope,stream,groupId,schema0);
         List<Object> objectList2 = new ArrayList<>();
-        EventRead<Object> event2 = reader2.readNextEvent(10000);
-        while (event2.getEvent() != null || event2.isCheckpoint()) {
-            Object obj = event2.getEvent();
-            System.out.println("event read:" + obj);
-            objectList2.add(obj);
-            event2 = reader2.readNextEvent(10000);
-        }
+        createDrain(scope,stream,groupId,schema0).drain(objectList2::add).print(System.out);
         assertEquals(10, objectList2.size());
         record0 = new GenericData.Record(schema0.getSchema());
         record0.put("a","writer1-"+0);
@@ -474,20 +406,19 @@ public class AvroCompatibilityP1Tests {
         assertEquals(record9.toString(), objectList2.get(9).toString());
     }
 
-    private EventStreamReader<Object> createReader(String scope, String stream, String groupId, AvroSchema<Object> schema) {
+    private EventDrain<Object> createDrain(String scope, String stream, String groupId, AvroSchema<Object> schema) {
         SerializerConfig serializerConfig = SerializerConfig.builder()
                 .groupId(groupId)
                 .registryClient(schemaRegistryClient)
                 .build();
 
-        Serializer<Object> deserializer = AvroSerializerFactory.genericDeserializer(serializerConfig, schema);
+        MeteredSerializer<Object> deserializer = new MeteredSerializer<>(AvroSerializerFactory.genericDeserializer(serializerConfig, schema));
         EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
         ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
         String rg = "rg" + stream + System.currentTimeMillis();
-        readerGroupManager.createReaderGroup(rg,
-                ReaderGroupConfig.builder().stream(NameUtils.getScopedStreamName(scope, stream)).disableAutomaticCheckpoints().build());
+        readerGroupManager.createReaderGroup(rg, EventDrain.boundedToTail(clientConfig, scope, stream));
 
-        return clientFactory.createReader("r1", rg, deserializer, ReaderConfig.builder().build());
+        return new EventDrain<>(clientFactory.createReader("r1", rg, deserializer, ReaderConfig.builder().build()), deserializer);
     }
 
     private EventStreamWriter<Object> createWriter(String scope, String stream, String groupId, AvroSchema<Object> schema) {
@@ -0,0 +1,86 @@
+package qe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+// Reads and writes the REST model as CBOR (application/cbor) or Smile (application/x-jackson-smile), using the same
+// Jackson annotations JacksonJsonProvider uses for JSON. byte[] fields such as SchemaInfo.schemaData go out as raw
+// bytes instead of Base64 text, and numbers as binary. Request with request(BinaryJsonProvider.CBOR_TYPE) and
+// Entity.entity(value, BinaryJsonProvider.CBOR_TYPE); the registry answers JSON when it does not speak either.
+@Provider
+@Consumes({BinaryJsonProvider.CBOR, BinaryJsonProvider.SMILE})
+@Produces({BinaryJsonProvider.CBOR, BinaryJsonProvider.SMILE})
+public class BinaryJsonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    private static final ObjectMapper CBOR_MAPPER = mapper(new CBORFactory());
+    private static final ObjectMapper SMILE_MAPPER = mapper(new SmileFactory());
+
+    // the registry stand-in's settings: unknown properties are skipped, nulls are left out
+    static ObjectMapper mapper(JsonFactory factory) {
+        return new ObjectMapper(factory)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    // null for media types other than CBOR and Smile
+    static ObjectMapper mapperFor(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        if (mediaType.isCompatible(CBOR_TYPE) && !mediaType.isWildcardType()) {
+            return CBOR_MAPPER;
+        }
+        if (mediaType.isCompatible(SMILE_TYPE) && !mediaType.isWildcardType()) {
+            return SMILE_MAPPER;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        mapper.writerFor(mapper.constructType(genericType)).writeValue(entityStream, value);
+    }
+}
@@ -0,0 +1,85 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+// Base for codecs that compress each event as one block: a 4-byte big-endian uncompressed length followed by the
+// compressed bytes. Heap inputs are compressed straight from their backing array; direct inputs and the compressed
+// output go through thread-local scratch arrays, so encode allocates nothing once the scratch has grown to the
+// largest event. decode allocates only the returned buffer, after checking the length prefix against MAX_BLOCK_BYTES.
+abstract class BlockCodec implements Codec {
+    // Pravega's largest event; a prefix above it can only come from corrupt input
+    static final int MAX_BLOCK_BYTES = 8 * 1024 * 1024;
+    private static final ThreadLocal<byte[]> INPUT_SCRATCH = ThreadLocal.withInitial(() -> new byte[0]);
+    private static final ThreadLocal<byte[]> OUTPUT_SCRATCH = ThreadLocal.withInitial(() -> new byte[0]);
+
+    // compresses src[srcOffset, srcOffset + length) into dst starting at 0 and returns the compressed length
+    abstract int compress(byte[] src, int srcOffset, int length, byte[] dst);
+
+    abstract int maxCompressedLength(int length);
+
+    // decompresses src[srcOffset, srcOffset + length) into dst, which is exactly the uncompressed size
+    abstract void decompress(byte[] src, int srcOffset, int length, byte[] dst, Map<String, String> properties) throws IOException;
+
+    @Override
+    public void encode(ByteBuffer data, OutputStream bos) throws IOException {
+        int length = data.remaining();
+        byte[] src;
+        int srcOffset;
+        if (data.hasArray()) {
+            src = data.array();
+            srcOffset = data.arrayOffset() + data.position();
+        } else {
+            src = scratch(INPUT_SCRATCH, length);
+            srcOffset = 0;
+            data.duplicate().get(src, 0, length);
+        }
+        byte[] dst = scratch(OUTPUT_SCRATCH, maxCompressedLength(length));
+        int compressed = compress(src, srcOffset, length, dst);
+        bos.write(length >>> 24);
+        bos.write(length >>> 16);
+        bos.write(length >>> 8);
+        bos.write(length);
+        bos.write(dst, 0, compressed);
+        data.position(data.limit());
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer data, Map<String, String> properties) throws IOException {
+        if (data.remaining() < Integer.BYTES) {
+            throw new IOException(getName() + ": truncated block of " + data.remaining() + " bytes");
+        }
+        int length = data.getInt();
+        if (length < 0 || length > MAX_BLOCK_BYTES) {
+            throw new IOException(getName() + ": corrupt block, uncompressed length " + length + " is outside [0, " + MAX_BLOCK_BYTES + "]");
+        }
+        int compressed = data.remaining();
+        byte[] src;
+        int srcOffset;
+        if (data.hasArray()) {
+            src = data.array();
+            srcOffset = data.arrayOffset() + data.position();
+        } else {
+            src = scratch(INPUT_SCRATCH, compressed);
+            srcOffset = 0;
+            data.duplicate().get(src, 0, compressed);
+        }
+        byte[] result = new byte[length];
+        decompress(src, srcOffset, compressed, result, properties);
+        data.position(data.limit());
+        return ByteBuffer.wrap(result);
+    }
+
+    private static byte[] scratch(ThreadLocal<byte[]> scratch, int size) {
+        byte[] bytes = scratch.get();
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, bytes.length * 2)];
+            scratch.set(bytes);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,204 @@
+package qe;
+
+import io.pravega.client.ClientConfig;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.ReaderGroupManager;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.admin.impl.ReaderGroupManagerImpl;
+import io.pravega.client.admin.impl.StreamManagerImpl;
+import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
+import io.pravega.client.stream.*;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
+import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
+import io.pravega.schemaregistry.contract.data.Compatibility;
+import io.pravega.schemaregistry.contract.data.GroupProperties;
+import io.pravega.schemaregistry.contract.data.SerializationFormat;
+import io.pravega.schemaregistry.contract.generated.rest.model.CodecTypes;
+import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
+import io.pravega.schemaregistry.serializers.SerializerFactory;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.Response.Status.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// LZ4, dictionary Zstd and the adaptive codec through the serializer, registered the same way CompressionIOTests
+// registers gzip/snappy.
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BlockCodecIOTests {
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.62:9092");
+    private static String controllerURI = "tcp://10.243.41.90:9090";
+    private static ClientConfig clientConfig;
+    private static SchemaRegistryClient schemaRegistryClient;
+    private static final String scope = "scope" + System.currentTimeMillis();
+    private static final String stream = "stream";
+    private static final String groupId = scope+"-"+stream;
+    private static byte[] dictionary;
+    private final Schema SCHEMA1 = SchemaBuilder
+            .record("MyTest")
+            .fields()
+            .name("a")
+            .type(Schema.create(Schema.Type.STRING))
+            .noDefault()
+            .endRecord();
+    private final AvroSchema<GenericRecord> schema1 = AvroSchema.ofRecord(SCHEMA1);
+
+    @BeforeClass
+    public static void setUp() {
+        clientConfig = ClientConfig.builder().controllerURI(URI.create(controllerURI)).build();
+        schemaRegistryClient = SchemaRegistryClientFactory.withDefaultNamespace(SchemaRegistryClientConfig.builder().schemaRegistryUri(URI.create(schemaRegistryURI)).build());
+        // create stream
+        StreamManager streamManager = new StreamManagerImpl(clientConfig);
+        streamManager.createScope(scope);
+        streamManager.createStream(scope, stream, StreamConfiguration.builder().scalingPolicy(ScalingPolicy.fixed(1)).build());
+
+        // group properties are fixed at creation, so the dictionary is trained up front
+        dictionary = ZstdCodec.trainDictionary(samples(2000), 16 * 1024);
+        schemaRegistryClient.addGroup(groupId, new GroupProperties(SerializationFormat.Avro,
+                Compatibility.backward(),
+                false,
+                ZstdCodec.groupProperties(dictionary)));
+    }
+
+    @AfterClass
+    public static void tearDown(){
+        Client client = RestClients.shared();
+
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupId).toString();
+        Response response = client.target(resourceURl).request().delete();
+        assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
+        System.out.println("Delete group successful");
+    }
+
+    @Test
+    public void test1_verifyWriteWithLz4AndZstd(){
+        writeUsingCompression(new Lz4Codec(), "lz4 " + new String(samples(1).get(0), StandardCharsets.UTF_8));
+        writeUsingCompression(ZstdCodec.fromGroupProperties(schemaRegistryClient.getGroupProperties(groupId).getProperties(),
+                ZstdCodec.DEFAULT_LEVEL), "zstd " + new String(samples(1).get(0), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test2_verifyReadWithLz4AndZstd(){
+        Codec lz4 = new Lz4Codec();
+        Codec zstd = ZstdCodec.fromGroupProperties(schemaRegistryClient.getGroupProperties(groupId).getProperties(),
+                ZstdCodec.DEFAULT_LEVEL);
+        SerializerConfig serializerConfig = SerializerConfig.builder()
+                .groupId(groupId)
+                .decoder(lz4.getName(), lz4)
+                .decoder(zstd.getName(), zstd)
+                .registryClient(schemaRegistryClient)
+                .build();
+
+        MeteredSerializer<Object> readerDeserializer = new MeteredSerializer<>(SerializerFactory.avroGenericDeserializer(serializerConfig, null));
+
+        ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
+        String readerGroup = "rg" + stream + System.currentTimeMillis();
+        readerGroupManager.createReaderGroup(readerGroup, EventDrain.boundedToTail(clientConfig, scope, stream));
+        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
+        EventStreamReader<Object> reader = clientFactory.createReader("r1", readerGroup, readerDeserializer, ReaderConfig.builder().build());
+
+        List<Object> events = new ArrayList<>();
+        new EventDrain<>(reader, readerDeserializer).drain(events::add).print(System.out);
+        assertEquals(2, events.size());
+        assertEquals("lz4", ((GenericRecord) events.get(0)).get("a").toString().substring(0, 3));
+        assertEquals("zstd", ((GenericRecord) events.get(1)).get("a").toString().substring(0, 4));
+    }
+
+    @Test
+    public void test3_verifyCodecTypes(){
+        Client client = RestClients.shared();
+
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupId+"/codecTypes").toString();
+        Response response = client.target(resourceURl).request().get();
+        assertEquals("Get CodecTypesForGroup status", OK.getStatusCode(), response.getStatus());
+        CodecTypes codecTypes = response.readEntity(CodecTypes.class);
+        assertEquals(2, codecTypes.getCodecTypes().size());
+        assertEquals("application/x-lz4", codecTypes.getCodecTypes().get(0).getName());
+        assertEquals("application/x-zstd", codecTypes.getCodecTypes().get(1).getName());
+        // the dictionary id travels in each zstd frame, not in the codec type
+        Map<String, String> zstdProperties = codecTypes.getCodecTypes().get(1).getProperties();
+        assertTrue(zstdProperties == null || zstdProperties.isEmpty());
+    }
+
+    @Test
+    public void test4_verifyAdaptiveCodecAcrossGroupCodecTypes(){
+        // lz4 and zstd are registered with the group by test1, so the adaptive codec prefers lz4 and falls back to zstd
+        Codec zstd = ZstdCodec.fromGroupProperties(schemaRegistryClient.getGroupProperties(groupId).getProperties(),
+                ZstdCodec.DEFAULT_LEVEL);
+        AdaptiveCodec adaptive = AdaptiveCodec.forGroup(schemaRegistryClient, groupId, Arrays.asList(new Lz4Codec(), zstd));
+        writeUsingCompression(adaptive, "small");
+        writeUsingCompression(adaptive, CompressionIOTests.generateBigString(10));
+        writeUsingCompression(adaptive, new String(CodecBenchmark.payload("json", 10 * 1024), StandardCharsets.UTF_8));
+        System.out.println("adaptive codec counters " + adaptive.getCounters());
+        assertEquals(Long.valueOf(1), adaptive.getCounters().get("none/belowThreshold"));
+
+        AdaptiveCodec decoder = new AdaptiveCodec(Arrays.asList(new Lz4Codec(), zstd));
+        SerializerConfig serializerConfig = SerializerConfig.builder()
+                .groupId(groupId)
+                .decoder(Lz4Codec.NAME, new Lz4Codec())
+                .decoder(zstd.getName(), zstd)
+                .decoder(decoder.getName(), decoder)
+                .registryClient(schemaRegistryClient)
+                .build();
+        MeteredSerializer<Object> readerDeserializer = new MeteredSerializer<>(SerializerFactory.avroGenericDeserializer(serializerConfig, null));
+
+        ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
+        String readerGroup = "rg" + stream + System.currentTimeMillis();
+        readerGroupManager.createReaderGroup(readerGroup, EventDrain.boundedToTail(clientConfig, scope, stream));
+        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
+        EventStreamReader<Object> reader = clientFactory.createReader("r4", readerGroup, readerDeserializer, ReaderConfig.builder().build());
+
+        List<Object> events = new ArrayList<>();
+        new EventDrain<>(reader, readerDeserializer).drain(events::add).print(System.out);
+        assertEquals(5, events.size());
+        assertEquals("small", ((GenericRecord) events.get(2)).get("a").toString());
+    }
+
+    private void writeUsingCompression(Codec codecType, String input) {
+        SerializerConfig serializerConfig = SerializerConfig.builder()
+                .groupId(groupId)
+                .registerSchema(true)
+                .registerCodec(true)
+                .encoder(codecType)
+                .registryClient(schemaRegistryClient)
+                .build();
+
+        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
+
+        Serializer<GenericRecord> serializer = SerializerFactory.avroSerializer(serializerConfig, schema1);
+
+        EventStreamWriter<GenericRecord> writer = clientFactory.createEventWriter(stream, serializer, EventWriterConfig.builder().build());
+        GenericRecord record = new GenericRecordBuilder(SCHEMA1).set("a", input).build();
+
+        writer.writeEvent(record).join();
+    }
+
+    private static List<byte[]> samples(int count) {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            samples.add(("{\"a\":\"writer1-" + i + "\",\"b\":" + (i * 31 % 1000)
+                    + ",\"type\":\"io.pravega.schemaregistry.test.integrationtest.generated.Type1\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        return samples;
+    }
+}
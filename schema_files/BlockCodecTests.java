@@ -0,0 +1,155 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BlockCodecTests {
+    private static final Map<String, String> NO_PROPERTIES = Collections.emptyMap();
+
+    @Test
+    public void verifyLz4RoundTrip() throws IOException {
+        verifyRoundTrip(new Lz4Codec(), NO_PROPERTIES);
+        verifyRoundTrip(new Lz4Codec(true), NO_PROPERTIES);
+    }
+
+    @Test
+    public void verifyZstdRoundTrip() throws IOException {
+        verifyRoundTrip(new ZstdCodec(), NO_PROPERTIES);
+        verifyRoundTrip(new ZstdCodec(19), NO_PROPERTIES);
+    }
+
+    @Test
+    public void verifyZstdDictionaryFromGroupProperties() throws IOException {
+        byte[] dictionary = ZstdCodec.trainDictionary(records(2000, 1), 16 * 1024);
+        Map<String, String> groupProperties = ZstdCodec.groupProperties(dictionary);
+        String id = groupProperties.get(ZstdCodec.DICTIONARY_ID);
+        assertEquals(id, ZstdCodec.dictionaryId(dictionary));
+        // the dictionary id travels in each frame, so decoding needs no codec properties
+        Map<String, String> codecProperties = NO_PROPERTIES;
+
+        ZstdCodec writer = ZstdCodec.fromGroupProperties(groupProperties, ZstdCodec.DEFAULT_LEVEL);
+        ZstdCodec reader = ZstdCodec.fromGroupProperties(groupProperties, ZstdCodec.DEFAULT_LEVEL);
+        verifyRoundTrip(writer, codecProperties);
+
+        // records the dictionary was not trained on still share its structure
+        int plain = 0;
+        int withDictionary = 0;
+        for (byte[] record : records(100, 2)) {
+            byte[] encoded = encode(writer, ByteBuffer.wrap(record));
+            assertArrayEquals(record, decode(reader, ByteBuffer.wrap(encoded), codecProperties));
+            withDictionary += encoded.length;
+            plain += encode(new ZstdCodec(), ByteBuffer.wrap(record)).length;
+        }
+        System.out.println("zstd bytes for 100 records: plain " + plain + ", with dictionary " + withDictionary);
+        assertTrue(withDictionary * 2 < plain);
+
+        try {
+            decode(new ZstdCodec(), ByteBuffer.wrap(encode(writer, ByteBuffer.wrap(records(1, 3).get(0)))), codecProperties);
+            fail("decode without the dictionary should fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(id));
+        }
+    }
+
+    @Test
+    public void verifyZstdWritersShareOneCodecType() throws IOException {
+        // a plain writer and writers on a rotated dictionary register the same application/x-zstd codec type, and the
+        // registry hands back the first registration's properties with every encoding of the group
+        byte[] first = ZstdCodec.trainDictionary(records(2000, 1), 16 * 1024);
+        byte[] second = ZstdCodec.trainDictionary(records(2000, 4), 8 * 1024);
+        assertNotEquals(ZstdCodec.dictionaryId(first), ZstdCodec.dictionaryId(second));
+        Map<String, String> groupProperties = new HashMap<>(ZstdCodec.groupProperties(first));
+        groupProperties.putAll(ZstdCodec.groupProperties(second));
+        Codec[] writers = {new ZstdCodec(), new ZstdCodec(ZstdCodec.DEFAULT_LEVEL, first), new ZstdCodec(ZstdCodec.DEFAULT_LEVEL, second)};
+        for (Codec writer : writers) {
+            assertEquals(ZstdCodec.CODEC_TYPE, writer.getCodecType());
+        }
+
+        ZstdCodec reader = ZstdCodec.fromGroupProperties(groupProperties, ZstdCodec.DEFAULT_LEVEL);
+        Map<String, String> registered = Collections.singletonMap(ZstdCodec.DICTIONARY_ID, ZstdCodec.dictionaryId(first));
+        for (byte[] record : records(50, 5)) {
+            for (Codec writer : writers) {
+                assertArrayEquals(record, decode(reader, ByteBuffer.wrap(encode(writer, ByteBuffer.wrap(record))), registered));
+                assertArrayEquals(record, decode(reader, ByteBuffer.wrap(encode(writer, ByteBuffer.wrap(record))), NO_PROPERTIES));
+            }
+        }
+    }
+
+    @Test
+    public void verifyTruncatedBlockIsRejected() {
+        try {
+            new Lz4Codec().decode(ByteBuffer.wrap(new byte[]{0, 0}), NO_PROPERTIES);
+            fail("decode of a truncated block should fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void verifyCorruptLengthIsRejected() {
+        // negative and oversized prefixes fail before anything is allocated for them
+        for (int length : new int[]{-1, Integer.MAX_VALUE, BlockCodec.MAX_BLOCK_BYTES + 1}) {
+            for (Codec codec : new Codec[]{new Lz4Codec(), new ZstdCodec()}) {
+                try {
+                    codec.decode(ByteBuffer.allocate(8).putInt(0, length), NO_PROPERTIES);
+                    fail("decode of a block of length " + length + " should fail");
+                } catch (IOException e) {
+                    assertTrue(e.getMessage().contains("corrupt"));
+                }
+            }
+        }
+    }
+
+    private static void verifyRoundTrip(Codec codec, Map<String, String> properties) throws IOException {
+        for (int size : new int[]{0, 1, 100, 10 * 1024, 256 * 1024}) {
+            byte[] payload = CodecBenchmark.payload("json", size);
+            byte[] encoded = encode(codec, ByteBuffer.wrap(payload));
+            assertArrayEquals(codec.getName() + " " + size, payload, decode(codec, ByteBuffer.wrap(encoded), properties));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(payload.length);
+            direct.put(payload).flip();
+            byte[] encodedFromDirect = encode(codec, direct);
+            assertFalse(direct.hasRemaining());
+            assertArrayEquals(encoded, encodedFromDirect);
+            ByteBuffer directEncoded = ByteBuffer.allocateDirect(encoded.length);
+            directEncoded.put(encoded).flip();
+            assertArrayEquals(codec.getName() + " " + size, payload, decode(codec, directEncoded, properties));
+        }
+    }
+
+    // small, repetitive records like the serialized Avro events the writers produce
+    private static List<byte[]> records(int count, long seed) {
+        Random random = new Random(seed);
+        String[] currencies = {"EUR", "USD", "GBP", "INR", "JPY"};
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String record = "{\"id\":\"payment-" + random.nextInt(1000000) + "\",\"amount\":" + random.nextInt(100000)
+                    + ",\"currency\":\"" + currencies[random.nextInt(currencies.length)]
+                    + "\",\"type\":\"io.pravega.schemaregistry.test.integrationtest.generated.Payment\",\"note\":\"written by writer-"
+                    + random.nextInt(16) + "\"}";
+            records.add(record.getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private static byte[] encode(Codec codec, ByteBuffer data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(data, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(Codec codec, ByteBuffer data, Map<String, String> properties) throws IOException {
+        ByteBuffer decoded = codec.decode(data, properties);
+        byte[] bytes = new byte[decoded.remaining()];
+        decoded.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,154 @@
+package qe;
+
+import com.google.common.hash.HashCode;
+import io.pravega.client.stream.Serializer;
+import io.pravega.schemaregistry.contract.generated.rest.model.CodecType;
+import io.pravega.schemaregistry.contract.generated.rest.model.EncodingInfo;
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// Generic Avro deserializer for the registry's wire format (a protocol byte, the 4 byte encoding id, then the datum
+// through the encoding's codec), in place of SerializerFactory.avroGenericDeserializer when a reader sees a mix of
+// writer versions. Writer schemas are resolved against the reader schema through a SchemaResolutionCache, and the
+// BinaryDecoder is reused per thread, so a heap buffer is decoded without allocating more than the record.
+// projection() and specific() avoid the full GenericRecord: writer fields the reader schema leaves out are skipped in
+// the binary stream without being decoded, and specific() fills the generated class' fields directly.
+// warmUp() resolves all of a group's encodings before the first event instead of one registry round trip per
+// first-seen encoding id on the read path.
+public class CachingAvroDeserializer implements Serializer<Object> {
+    private static final byte PROTOCOL = 0x1;
+    private static final ThreadLocal<BinaryDecoder> DECODERS = new ThreadLocal<>();
+    // one model per generated class so deserializers of the same class share cache entries
+    private static final ClassValue<SpecificData> SPECIFIC = new ClassValue<SpecificData>() {
+        @Override
+        protected SpecificData computeValue(Class<?> type) {
+            String fullName = SpecificData.get().getSchema(type).getFullName();
+            // the generated class need not live in the package its schema namespace names
+            return new SpecificData(type.getClassLoader()) {
+                @Override
+                public Class getClass(Schema schema) {
+                    return schema.getFullName().equals(fullName) ? type : super.getClass(schema);
+                }
+            };
+        }
+    };
+
+    private final SchemaResolutionCache resolutions;
+    private final Schema readerSchema;
+    private final HashCode readerFingerprint;
+    private final Map<String, Codec> decoders;
+    private final GenericData model;
+
+    // readerSchema null reads each event with its writer's schema; decoders are keyed by codec type name
+    public CachingAvroDeserializer(SchemaResolutionCache resolutions, @Nullable Schema readerSchema, Map<String, Codec> decoders) {
+        this(resolutions, readerSchema, decoders, GenericData.get());
+    }
+
+    private CachingAvroDeserializer(SchemaResolutionCache resolutions, @Nullable Schema readerSchema,
+                                    Map<String, Codec> decoders, GenericData model) {
+        this.resolutions = resolutions;
+        this.readerSchema = readerSchema;
+        this.readerFingerprint = readerSchema == null ? null : SchemaResolutionCache.fingerprint(readerSchema);
+        this.decoders = decoders;
+        this.model = model;
+    }
+
+    // GenericRecords holding only the named fields of readerSchema
+    public static CachingAvroDeserializer projection(SchemaResolutionCache resolutions, Schema readerSchema,
+                                                     Map<String, Codec> decoders, String... fields) {
+        return new CachingAvroDeserializer(resolutions, project(readerSchema, fields), decoders);
+    }
+
+    // instances of a generated SpecificRecord class, read with the class' schema
+    public static CachingAvroDeserializer specific(SchemaResolutionCache resolutions, Class<? extends SpecificRecord> type,
+                                                   Map<String, Codec> decoders) {
+        SpecificData model = SPECIFIC.get(type);
+        return new CachingAvroDeserializer(resolutions, model.getSchema(type), decoders, model);
+    }
+
+    // readerSchema cut down to the named top level fields, keeping their defaults and aliases
+    static Schema project(Schema readerSchema, String... fields) {
+        List<Schema.Field> projected = new ArrayList<>();
+        for (String name : fields) {
+            Schema.Field field = readerSchema.getField(name);
+            if (field == null) {
+                throw new IllegalArgumentException("No field " + name + " in " + readerSchema.getFullName());
+            }
+            projected.add(new Schema.Field(field, field.schema()));
+        }
+        Schema projection = Schema.createRecord(readerSchema.getName(), readerSchema.getDoc(), readerSchema.getNamespace(),
+                readerSchema.isError(), projected);
+        readerSchema.getAliases().forEach(projection::addAlias);
+        return projection;
+    }
+
+    // One bulk fetch of the group's encodings, then their writer schemas parsed on executor; returns this. Fails here
+    // rather than mid-stream when an encoding uses a codec there is no decoder for.
+    public CachingAvroDeserializer warmUp(SchemaRegistryRestClient restClient, String groupId, Executor executor) {
+        return warmUp(restClient.getEncodingInfos(groupId), executor);
+    }
+
+    CachingAvroDeserializer warmUp(List<EncodingInfo> encodings, Executor executor) {
+        for (EncodingInfo encodingInfo : encodings) {
+            CodecType codecType = encodingInfo.getCodecType();
+            if (codecType != null && codecType.getName() != null && !codecType.getName().isEmpty()
+                    && !decoders.containsKey(codecType.getName())) {
+                throw new IllegalStateException("No decoder for codec " + codecType.getName());
+            }
+        }
+        resolutions.warmUp(encodings, readerFingerprint, readerSchema, model, executor);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer serialize(Object value) {
+        throw new UnsupportedOperationException("CachingAvroDeserializer only deserializes");
+    }
+
+    @Override
+    public Object deserialize(ByteBuffer serializedValue) {
+        byte protocol = serializedValue.get();
+        if (protocol != PROTOCOL) {
+            throw new IllegalArgumentException("Unknown protocol version " + protocol);
+        }
+        int encodingId = serializedValue.getInt();
+        SchemaResolutionCache.Resolution resolution = resolutions.get(encodingId, readerFingerprint, readerSchema, model);
+        try {
+            ByteBuffer datum = serializedValue;
+            if (!resolution.codecName.isEmpty()) {
+                Codec codec = decoders.get(resolution.codecName);
+                if (codec == null) {
+                    throw new IllegalStateException("No decoder for codec " + resolution.codecName);
+                }
+                datum = codec.decode(serializedValue, resolution.codecProperties);
+            }
+            BinaryDecoder decoder;
+            if (datum.hasArray()) {
+                decoder = DecoderFactory.get().binaryDecoder(datum.array(), datum.arrayOffset() + datum.position(),
+                        datum.remaining(), DECODERS.get());
+            } else {
+                byte[] bytes = new byte[datum.remaining()];
+                datum.duplicate().get(bytes);
+                decoder = DecoderFactory.get().binaryDecoder(bytes, DECODERS.get());
+            }
+            DECODERS.set(decoder);
+            return resolution.datumReader.read(null, decoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.CodecType;
+import io.pravega.schemaregistry.contract.generated.rest.model.EncodingInfo;
+import io.pravega.schemaregistry.contract.generated.rest.model.SchemaInfo;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CachingAvroDeserializerTests {
+    private static final String SCHEMA0 = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+    private static final String SCHEMA1 = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"},"
+            + "{\"name\":\"b\",\"type\":\"int\",\"default\":-1}]}";
+    private final Schema schema0 = new Schema.Parser().parse(SCHEMA0);
+    private final Schema schema1 = new Schema.Parser().parse(SCHEMA1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // encoding 0 is schema0 uncompressed, encoding 1 is schema1 through lz4
+    private SchemaResolutionCache cache(long maximumSize) {
+        return new SchemaResolutionCache(encodingId -> {
+            loads.incrementAndGet();
+            return encodingId == 0
+                    ? new SchemaResolutionCache.Writer(new Schema.Parser().parse(SCHEMA0), "", Collections.emptyMap())
+                    : new SchemaResolutionCache.Writer(new Schema.Parser().parse(SCHEMA1), Lz4Codec.NAME, Collections.emptyMap());
+        }, maximumSize);
+    }
+
+    private ByteBuffer event(int encodingId, GenericRecord record) throws IOException {
+        ByteArrayOutputStream datum = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(datum, null);
+        new GenericDatumWriter<GenericRecord>(record.getSchema()).write(record, encoder);
+        encoder.flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(1);
+        out.write(ByteBuffer.allocate(4).putInt(encodingId).array());
+        if (encodingId == 0) {
+            datum.writeTo(out);
+        } else {
+            new Lz4Codec().encode(ByteBuffer.wrap(datum.toByteArray()), out);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private GenericRecord record(Schema schema, String a, int b) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("a", a);
+        if (schema.getField("b") != null) {
+            record.put("b", b);
+        }
+        return record;
+    }
+
+    @Test
+    public void verifyInterleavedVersionsResolveOncePerEncoding() throws IOException {
+        SchemaResolutionCache cache = cache(100);
+        CachingAvroDeserializer deserializer = new CachingAvroDeserializer(cache, schema1,
+                Collections.singletonMap(Lz4Codec.NAME, new Lz4Codec()));
+        for (int i = 0; i < 100; i++) {
+            GenericRecord read = (GenericRecord) deserializer.deserialize(i % 2 == 0
+                    ? event(0, record(schema0, "writer1-" + i, 0)) : event(1, record(schema1, "writer2-" + i, i)));
+            assertEquals(i % 2 == 0 ? "writer1-" + i : "writer2-" + i, read.get("a").toString());
+            // events from schema0 get the reader's default for b
+            assertEquals(i % 2 == 0 ? -1 : i, read.get("b"));
+        }
+        assertEquals(2, loads.get());
+        assertEquals(98, cache.stats().hitCount());
+
+        // the same reader schema parsed again shares the entries
+        CachingAvroDeserializer second = new CachingAvroDeserializer(cache, new Schema.Parser().parse(SCHEMA1),
+                Collections.singletonMap(Lz4Codec.NAME, new Lz4Codec()));
+        assertEquals(-1, ((GenericRecord) second.deserialize(event(0, record(schema0, "again", 0)))).get("b"));
+        assertEquals(2, loads.get());
+
+        // without a reader schema each event is read with its writer's
+        CachingAvroDeserializer writerSchema = new CachingAvroDeserializer(cache, null,
+                Collections.singletonMap(Lz4Codec.NAME, new Lz4Codec()));
+        assertNull(((GenericRecord) writerSchema.deserialize(event(0, record(schema0, "own", 0)))).getSchema().getField("b"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void verifyCacheIsBounded() throws IOException {
+        SchemaResolutionCache cache = cache(1);
+        CachingAvroDeserializer deserializer = new CachingAvroDeserializer(cache, schema1,
+                Collections.singletonMap(Lz4Codec.NAME, new Lz4Codec()));
+        for (int i = 0; i < 4; i++) {
+            deserializer.deserialize(event(i % 2, record(i % 2 == 0 ? schema0 : schema1, "e" + i, i)));
+        }
+        assertEquals(1, cache.size());
+        assertEquals(4, loads.get());
+        assertEquals(3, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void verifyProjectionAndSpecificRecords() throws IOException {
+        Schema narrow = DeserializerBenchmark.type1(0);
+        Schema wide = DeserializerBenchmark.type1(50);
+        SchemaResolutionCache cache = new SchemaResolutionCache(encodingId ->
+                new SchemaResolutionCache.Writer(encodingId == 0 ? narrow : wide, "", Collections.emptyMap()), 10);
+        CachingAvroDeserializer projection = CachingAvroDeserializer.projection(cache, wide, Collections.emptyMap(), "b", "a");
+        CachingAvroDeserializer specific = CachingAvroDeserializer.specific(cache, DeserializerBenchmark.Type1.class, Collections.emptyMap());
+        for (int i = 0; i < 4; i++) {
+            ByteBuffer event = DeserializerBenchmark.event(i % 2 == 0 ? narrow : wide, i % 2);
+            GenericRecord projected = (GenericRecord) projection.deserialize(event.duplicate());
+            assertEquals(2, projected.getSchema().getFields().size());
+            assertEquals("writer-" + i % 2, projected.get("a").toString());
+            assertEquals(1, projected.get("b"));
+            DeserializerBenchmark.Type1 type1 = (DeserializerBenchmark.Type1) specific.deserialize(event.duplicate());
+            assertEquals("writer-" + i % 2, type1.a.toString());
+            assertEquals(1, type1.b);
+        }
+        // a projection and a specific reader of the same fields still get their own entries
+        assertEquals(4, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verifyProjectionOfUnknownFieldIsRejected() {
+        CachingAvroDeserializer.project(schema1, "a", "z");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void verifyMissingDecoderIsReported() throws IOException {
+        new CachingAvroDeserializer(cache(10), schema1, Collections.emptyMap()).deserialize(event(1, record(schema1, "lz4", 1)));
+    }
+
+    @Test
+    public void verifyWarmUpResolvesEveryEncodingUpFront() throws IOException {
+        SchemaResolutionCache cache = cache(100);
+        // the same two encodings cache() loads one at a time, as the bulk endpoint lists them
+        List<EncodingInfo> encodings = Arrays.asList(
+                new EncodingInfo().schemaInfo(new SchemaInfo().schemaData(SCHEMA0.getBytes())),
+                new EncodingInfo().schemaInfo(new SchemaInfo().schemaData(SCHEMA1.getBytes())).codecType(new CodecType().name(Lz4Codec.NAME)));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CachingAvroDeserializer deserializer = new CachingAvroDeserializer(cache, schema1,
+                    Collections.singletonMap(Lz4Codec.NAME, new Lz4Codec())).warmUp(encodings, executor);
+            assertEquals(2, cache.size());
+            assertEquals("writer1", ((GenericRecord) deserializer.deserialize(event(0, record(schema0, "writer1", 0)))).get("a").toString());
+            assertEquals(7, ((GenericRecord) deserializer.deserialize(event(1, record(schema1, "writer2", 7)))).get("b"));
+            assertEquals(0, loads.get());
+            assertEquals(0, cache.stats().missCount());
+
+            // a codec without decoder is reported at warm-up, not on the first event that uses it
+            try {
+                new CachingAvroDeserializer(cache, schema1, Collections.emptyMap()).warmUp(encodings, executor);
+                fail("warm-up without an lz4 decoder");
+            } catch (IllegalStateException e) {
+                assertEquals("No decoder for codec " + Lz4Codec.NAME, e.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
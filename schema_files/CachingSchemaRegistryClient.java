@@ -0,0 +1,266 @@
+package qe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.contract.data.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+
+import javax.annotation.Nullable;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+// SchemaRegistryClient decorator that caches the lookups a serializer makes when it is built and that never change
+// once the registry has answered them: encoding id <-> encoding info, schema for a version and version for a
+// schema. addSchema always goes to the delegate and only fills the cache; everything else goes straight to the
+// delegate. Each cache is bounded (maximumSize entries, least recently used evicted first) and records
+// hit/miss/load-time stats; see stats() and printStats().
+// Removing a group or deleting a schema version through this client drops that group's entries. Added to a
+// GroupWatcher it also follows changes made by other clients: new encodings and versions are cached before anyone
+// asks for them, and versions deleted elsewhere drop the group's entries.
+public class CachingSchemaRegistryClient implements SchemaRegistryClient, GroupWatcher.Listener {
+    private final SchemaRegistryClient delegate;
+    private final Cache<Key, EncodingId> encodingIds;
+    private final Cache<Key, EncodingInfo> encodingInfos;
+    private final Cache<Key, SchemaInfo> schemasForVersion;
+    private final Cache<Key, VersionInfo> versionsForSchema;
+
+    public CachingSchemaRegistryClient(SchemaRegistryClient delegate, long maximumSize) {
+        this.delegate = delegate;
+        this.encodingIds = newCache(maximumSize);
+        this.encodingInfos = newCache(maximumSize);
+        this.schemasForVersion = newCache(maximumSize);
+        this.versionsForSchema = newCache(maximumSize);
+    }
+
+    private static <V> Cache<Key, V> newCache(long maximumSize) {
+        return CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    // region cached lookups
+    @Override
+    public EncodingId getEncodingId(String groupId, VersionInfo versionInfo, String codecType) {
+        return load(encodingIds, new Key(groupId, versionInfo, codecType), () -> delegate.getEncodingId(groupId, versionInfo, codecType));
+    }
+
+    @Override
+    public EncodingInfo getEncodingInfo(String groupId, EncodingId encodingId) {
+        return load(encodingInfos, new Key(groupId, encodingId, null), () -> delegate.getEncodingInfo(groupId, encodingId));
+    }
+
+    @Override
+    public SchemaInfo getSchemaForVersion(String groupId, VersionInfo versionInfo) {
+        return load(schemasForVersion, new Key(groupId, versionInfo, null), () -> delegate.getSchemaForVersion(groupId, versionInfo));
+    }
+
+    @Override
+    public VersionInfo getVersionForSchema(String groupId, SchemaInfo schema) {
+        return load(versionsForSchema, new Key(groupId, schema, null), () -> delegate.getVersionForSchema(groupId, schema));
+    }
+
+    @Override
+    public VersionInfo addSchema(String groupId, SchemaInfo schemaInfo) {
+        // always registered: a cached version may have been deleted, or its group recreated, by another client
+        VersionInfo versionInfo = delegate.addSchema(groupId, schemaInfo);
+        versionsForSchema.put(new Key(groupId, schemaInfo, null), versionInfo);
+        return versionInfo;
+    }
+
+    private static <V> V load(Cache<Key, V> cache, Key key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    // endregion
+
+    // region invalidation
+    @Override
+    public void removeGroup(String groupId) {
+        delegate.removeGroup(groupId);
+        invalidate(groupId);
+    }
+
+    @Override
+    public void deleteSchemaVersion(String groupId, VersionInfo versionInfo) {
+        delegate.deleteSchemaVersion(groupId, versionInfo);
+        invalidate(groupId);
+    }
+
+    @Override
+    public void deleteSchemaVersion(String groupId, String schemaType, int version) {
+        delegate.deleteSchemaVersion(groupId, schemaType, version);
+        invalidate(groupId);
+    }
+
+    public void invalidate(String groupId) {
+        for (Cache<Key, ?> cache : caches().values()) {
+            cache.asMap().keySet().removeIf(key -> key.groupId.equals(groupId));
+        }
+    }
+    // endregion
+
+    // region change feed
+    @Override
+    public void onChange(String groupId, GroupChange change) {
+        switch (change.getKind()) {
+            case ENCODING_ADDED:
+                EncodingId encodingId = new EncodingId(change.getEncodingId());
+                EncodingInfo encodingInfo = ModelHelper.decode(change.getEncodingInfo());
+                encodingInfos.put(new Key(groupId, encodingId, null), encodingInfo);
+                encodingIds.put(new Key(groupId, encodingInfo.getVersionInfo(), encodingInfo.getCodecType().getName()), encodingId);
+                break;
+            case SCHEMA_ADDED:
+                schemasForVersion.put(new Key(groupId, ModelHelper.decode(change.getVersionInfo()), null),
+                        ModelHelper.decode(change.getSchemaInfo()));
+                break;
+            case SCHEMA_DELETED:
+                invalidate(groupId);
+                break;
+            default:
+                // compatibility and codec types are not cached
+                break;
+        }
+    }
+
+    @Override
+    public void onReset(String groupId) {
+        invalidate(groupId);
+    }
+    // endregion
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        caches().forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+
+    public void printStats(PrintStream out) {
+        out.println(String.format("%-20s %9s %9s %8s %9s %14s %9s", "cache", "hits", "misses", "hitRate", "loads", "avgLoad(ms)", "evicted"));
+        stats().forEach((name, s) -> out.println(String.format("%-20s %9d %9d %8.3f %9d %14.3f %9d",
+                name, s.hitCount(), s.missCount(), s.hitRate(), s.loadCount(), s.averageLoadPenalty() / 1e6, s.evictionCount())));
+    }
+
+    private Map<String, Cache<Key, ?>> caches() {
+        Map<String, Cache<Key, ?>> caches = new LinkedHashMap<>();
+        caches.put("encodingId", encodingIds);
+        caches.put("encodingInfo", encodingInfos);
+        caches.put("schemaForVersion", schemasForVersion);
+        caches.put("versionForSchema", versionsForSchema);
+        return caches;
+    }
+
+    // region pass-through
+    @Override
+    public boolean addGroup(String groupId, GroupProperties groupProperties) {
+        return delegate.addGroup(groupId, groupProperties);
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, GroupProperties>> listGroups() {
+        return delegate.listGroups();
+    }
+
+    @Override
+    public GroupProperties getGroupProperties(String groupId) {
+        return delegate.getGroupProperties(groupId);
+    }
+
+    @Override
+    public boolean updateCompatibility(String groupId, Compatibility compatibility, @Nullable Compatibility previous) {
+        return delegate.updateCompatibility(groupId, compatibility, previous);
+    }
+
+    @Override
+    public List<SchemaWithVersion> getSchemas(String groupId) {
+        return delegate.getSchemas(groupId);
+    }
+
+    @Override
+    public SchemaWithVersion getLatestSchemaVersion(String groupId, @Nullable String schemaType) {
+        return delegate.getLatestSchemaVersion(groupId, schemaType);
+    }
+
+    @Override
+    public List<SchemaWithVersion> getSchemaVersions(String groupId, @Nullable String schemaType) {
+        return delegate.getSchemaVersions(groupId, schemaType);
+    }
+
+    @Override
+    public boolean validateSchema(String groupId, SchemaInfo schemaInfo) {
+        return delegate.validateSchema(groupId, schemaInfo);
+    }
+
+    @Override
+    public boolean canReadUsing(String groupId, SchemaInfo schemaInfo) {
+        return delegate.canReadUsing(groupId, schemaInfo);
+    }
+
+    @Override
+    public List<CodecType> getCodecTypes(String groupId) {
+        return delegate.getCodecTypes(groupId);
+    }
+
+    @Override
+    public void addCodecType(String groupId, CodecType codecType) {
+        delegate.addCodecType(groupId, codecType);
+    }
+
+    @Override
+    public List<GroupHistoryRecord> getGroupHistory(String groupId) {
+        return delegate.getGroupHistory(groupId);
+    }
+
+    @Override
+    public Map<String, VersionInfo> getSchemaReferences(SchemaInfo schemaInfo) {
+        return delegate.getSchemaReferences(schemaInfo);
+    }
+
+    @Override
+    public String getNamespace() {
+        return delegate.getNamespace();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+    // endregion
+
+    private static final class Key {
+        private final String groupId;
+        private final Object first;
+        private final Object second;
+
+        private Key(String groupId, Object first, Object second) {
+            this.groupId = groupId;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return groupId.equals(key.groupId) && Objects.equals(first, key.first) && Objects.equals(second, key.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, first, second);
+        }
+    }
+}
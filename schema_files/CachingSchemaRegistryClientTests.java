@@ -0,0 +1,101 @@
+package qe;
+
+import com.google.common.collect.ImmutableMap;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.contract.data.EncodingId;
+import io.pravega.schemaregistry.contract.data.EncodingInfo;
+import io.pravega.schemaregistry.contract.data.SchemaInfo;
+import io.pravega.schemaregistry.contract.data.SerializationFormat;
+import io.pravega.schemaregistry.contract.data.VersionInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CachingSchemaRegistryClientTests {
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final VersionInfo versionInfo = new VersionInfo("Type1", "Avro", 0, 0);
+    private final EncodingId encodingId = new EncodingId(0);
+    private final EncodingInfo encodingInfo = new EncodingInfo(versionInfo, null, null);
+    private final SchemaInfo schemaInfo = new SchemaInfo("Type1", SerializationFormat.Avro, ByteBuffer.allocate(0), ImmutableMap.of());
+    private CachingSchemaRegistryClient client;
+
+    @Before
+    public void setUp() {
+        // counts calls per method and answers the lookups under test
+        SchemaRegistryClient delegate = (SchemaRegistryClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SchemaRegistryClient.class}, (proxy, method, args) -> {
+                    calls.computeIfAbsent(method.getName(), k -> new AtomicInteger()).incrementAndGet();
+                    switch (method.getName()) {
+                        case "getEncodingId":
+                            return encodingId;
+                        case "getEncodingInfo":
+                            return encodingInfo;
+                        case "addSchema":
+                            return versionInfo;
+                        default:
+                            return null;
+                    }
+                });
+        client = new CachingSchemaRegistryClient(delegate, 2);
+    }
+
+    @Test
+    public void verifyRepeatedLookupsAreServedFromCache() {
+        for (int i = 0; i < 10; i++) {
+            assertSame(encodingId, client.getEncodingId("grp", versionInfo, ""));
+            assertSame(encodingInfo, client.getEncodingInfo("grp", encodingId));
+        }
+        assertEquals(1, calls.get("getEncodingId").get());
+        assertEquals(1, calls.get("getEncodingInfo").get());
+        assertEquals(9, client.stats().get("encodingId").hitCount());
+        assertEquals(1, client.stats().get("encodingId").missCount());
+    }
+
+    @Test
+    public void verifyCacheIsBoundedAndInvalidatedPerGroup() {
+        client.getEncodingInfo("grp1", encodingId);
+        client.getEncodingInfo("grp2", encodingId);
+        client.getEncodingInfo("grp3", encodingId);
+        assertEquals(1, client.stats().get("encodingInfo").evictionCount());
+
+        client.removeGroup("grp3");
+        client.getEncodingInfo("grp2", encodingId);
+        client.getEncodingInfo("grp3", encodingId);
+        assertEquals(4, calls.get("getEncodingInfo").get());
+    }
+
+    @Test
+    public void verifyAddSchemaAlwaysRegisters() {
+        // the version may have been deleted elsewhere since, so each add reaches the registry
+        assertSame(versionInfo, client.addSchema("grp", schemaInfo));
+        assertSame(versionInfo, client.addSchema("grp", schemaInfo));
+        assertEquals(2, calls.get("addSchema").get());
+        // and its answer serves the lookup
+        assertSame(versionInfo, client.getVersionForSchema("grp", schemaInfo));
+        assertNull(calls.get("getVersionForSchema"));
+    }
+
+    @Test
+    public void verifyChangeFeedInvalidatesGroup() {
+        client.getEncodingInfo("grp1", encodingId);
+        client.getEncodingInfo("grp2", encodingId);
+        // compatibility changes leave the entries alone, a version deleted elsewhere drops the group's
+        client.onChange("grp1", new GroupChange(1, GroupChange.Kind.COMPATIBILITY_CHANGED));
+        client.getEncodingInfo("grp1", encodingId);
+        assertEquals(2, calls.get("getEncodingInfo").get());
+        client.onChange("grp1", new GroupChange(2, GroupChange.Kind.SCHEMA_DELETED));
+        client.getEncodingInfo("grp1", encodingId);
+        client.getEncodingInfo("grp2", encodingId);
+        assertEquals(3, calls.get("getEncodingInfo").get());
+        client.onReset("grp2");
+        client.getEncodingInfo("grp2", encodingId);
+        assertEquals(4, calls.get("getEncodingInfo").get());
+    }
+}
@@ -0,0 +1,163 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import io.pravega.schemaregistry.serializer.shared.codec.Codecs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Measures encode/decode of the codecs used in CompressionIOTests and BlockCodecIOTests.
+// Run main() to get ops/s, MB/s (the "megabytes" counter), gc.alloc.rate.norm (bytes allocated per op)
+// and a compression ratio table for every codec/corpus/size combination.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    private static final Map<String, String> NO_PROPERTIES = Collections.emptyMap();
+
+    @Param({"gzip", "snappy", "lz4", "zstd", "adaptive", "mycompression"})
+    public String codecName;
+
+    // payload size in kb: 1 KB to 16 MB
+    @Param({"1", "16", "256", "1024", "4096", "16384"})
+    public int sizeInKb;
+
+    @Param({"random", "text", "json"})
+    public String corpus;
+
+    private Codec codec;
+    private ByteBuffer raw;
+    private ByteBuffer encoded;
+    private ByteBuffer decodeInput;
+    private ByteArrayOutputStream sink;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public double megabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = codec(codecName);
+        raw = ByteBuffer.wrap(payload(corpus, sizeInKb * 1024));
+        sink = new ByteArrayOutputStream(raw.remaining() + 1024);
+        codec.encode(raw.duplicate(), sink);
+        encoded = ByteBuffer.wrap(sink.toByteArray());
+        decodeInput = ByteBuffer.allocate(encoded.remaining());
+        sink.reset();
+    }
+
+    @Benchmark
+    public void encode(Bytes bytes, Blackhole bh) throws IOException {
+        sink.reset();
+        codec.encode(raw.duplicate(), sink);
+        bytes.megabytes += raw.remaining() / 1_000_000.0;
+        bh.consume(sink.size());
+    }
+
+    @Benchmark
+    public void decode(Bytes bytes, Blackhole bh) throws IOException {
+        // mycompression (RotateCodec) decodes in place, so every op starts from a fresh copy of the encoded bytes
+        decodeInput.clear();
+        decodeInput.put(encoded.duplicate()).flip();
+        ByteBuffer decoded = codec.decode(decodeInput, NO_PROPERTIES);
+        bytes.megabytes += raw.remaining() / 1_000_000.0;
+        bh.consume(decoded);
+    }
+
+    static Codec codec(String name) {
+        switch (name) {
+            case "gzip":
+                return Codecs.GzipCompressor.getCodec();
+            case "snappy":
+                return Codecs.SnappyCompressor.getCodec();
+            case "lz4":
+                return new Lz4Codec();
+            case "zstd":
+                return new ZstdCodec();
+            case "adaptive":
+                return new AdaptiveCodec(Arrays.asList(new Lz4Codec(), new ZstdCodec()));
+            case "mycompression":
+                return CompressionIOTests.createCustomCodec();
+            default:
+                throw new IllegalArgumentException("Unknown codec " + name);
+        }
+    }
+
+    static byte[] payload(String corpus, int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        Random random = new Random(42);
+        switch (corpus) {
+            case "random":
+                // same generator the functional tests write: base64 of random bytes
+                while (sb.length() < size) {
+                    sb.append(CompressionIOTests.generateBigString(Math.min(1024, Math.max(1, size / 1024))));
+                }
+                break;
+            case "text":
+                String[] words = {"pravega", "schema", "registry", "stream", "segment", "event", "writer", "reader",
+                        "group", "codec", "version", "compatibility", "the", "a", "of", "and"};
+                while (sb.length() < size) {
+                    sb.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? ".\n" : " ");
+                }
+                break;
+            case "json":
+                int i = 0;
+                while (sb.length() < size) {
+                    sb.append("{\"a\":\"writer1-").append(i).append("\",\"b\":").append(random.nextInt(1000))
+                            .append(",\"type\":\"io.pravega.schemaregistry.test.integrationtest.generated.Type1\"}\n");
+                    i++;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + corpus);
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[size];
+        System.arraycopy(bytes, 0, result, 0, size);
+        return result;
+    }
+
+    static void printCompressionRatios() throws IOException {
+        System.out.println(String.format("%-14s %-8s %10s %14s %8s", "codec", "corpus", "size(kb)", "encoded(bytes)", "ratio"));
+        for (String codecName : new String[]{"gzip", "snappy", "lz4", "zstd", "adaptive", "mycompression"}) {
+            Codec codec = codec(codecName);
+            for (String corpus : new String[]{"random", "text", "json"}) {
+                for (int sizeInKb : new int[]{1, 16, 256, 1024, 4096, 16384}) {
+                    byte[] raw = payload(corpus, sizeInKb * 1024);
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length + 1024);
+                    codec.encode(ByteBuffer.wrap(raw), out);
+                    System.out.println(String.format("%-14s %-8s %10d %14d %8.3f", codecName, corpus, sizeInKb,
+                            out.size(), (double) raw.length / out.size()));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        printCompressionRatios();
+        Options options = new OptionsBuilder()
+                .include(CodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
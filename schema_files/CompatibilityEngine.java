@@ -0,0 +1,195 @@
+package qe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.contract.data.SchemaInfo;
+import io.pravega.schemaregistry.contract.data.SchemaWithVersion;
+import io.pravega.schemaregistry.contract.data.SerializationFormat;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.apache.avro.Schema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// Runs the reader/writer checks behind a CompatibilityPolicy. Transitive policies check the candidate against every
+// live version; the pairs are independent, so histories longer than `threshold` are split across a fork-join pool
+// and the first incompatible pair cancels the rest. Pair results only depend on the two schemas and are memoized
+// (up to memoSize pairs), so re-validating against a long history mostly costs the new pairs.
+//
+// InMemorySchemaRegistry validates with shared(); validate() runs the same check client side against the versions
+// the registry returns, before a deploy registers the schema.
+public class CompatibilityEngine {
+    // plain sequential checks without memoization, what CompatibilityPolicy does on its own
+    public static final CompatibilityEngine DIRECT = new CompatibilityEngine(null, 0, Integer.MAX_VALUE);
+    private static CompatibilityEngine shared;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final Cache<Pair, Boolean> memo;
+    // per Schema instance (weak, identity keys); registry versions are parsed once, so this is computed once each
+    private final Cache<Schema, HashCode> fingerprints = CacheBuilder.newBuilder().weakKeys().build();
+    private final LongAdder pairsChecked = new LongAdder();
+
+    // pool null runs every check on the calling thread; memoSize 0 disables the memo
+    public CompatibilityEngine(ForkJoinPool pool, long memoSize, int threshold) {
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+        this.memo = memoSize > 0 ? CacheBuilder.newBuilder().maximumSize(memoSize).recordStats().<Pair, Boolean>build() : null;
+    }
+
+    // common pool, 100k memoized pairs, split histories longer than 16 versions
+    public static synchronized CompatibilityEngine shared() {
+        if (shared == null) {
+            shared = new CompatibilityEngine(ForkJoinPool.commonPool(), 100_000, 16);
+        }
+        return shared;
+    }
+
+    public boolean canRead(Schema reader, Schema writer) {
+        if (memo == null) {
+            pairsChecked.increment();
+            return CompatibilityPolicy.canRead(reader, writer);
+        }
+        try {
+            return memo.get(new Pair(fingerprint(reader), fingerprint(writer)), () -> {
+                pairsChecked.increment();
+                return CompatibilityPolicy.canRead(reader, writer);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Hash of the full schema JSON, defaults and aliases included since they decide compatibility; comparing two of
+    // these is much cheaper than Schema.equals on records with hundreds of fields.
+    private HashCode fingerprint(Schema schema) throws ExecutionException {
+        return fingerprints.get(schema, () -> Hashing.murmur3_128().hashString(schema.toString(), StandardCharsets.UTF_8));
+    }
+
+    // reader can read data written with every one of writers
+    public boolean canReadAll(Schema reader, List<Schema> writers) {
+        return allMatch(writers.size(), i -> canRead(reader, writers.get(i)));
+    }
+
+    // every one of readers can read data written with writer
+    public boolean allCanRead(List<Schema> readers, Schema writer) {
+        return allMatch(readers.size(), i -> canRead(readers.get(i), writer));
+    }
+
+    private boolean allMatch(int size, IntPredicate check) {
+        if (pool == null || size <= threshold) {
+            for (int i = 0; i < size; i++) {
+                if (!check.test(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        AllMatch task = new AllMatch(check, 0, size, new AtomicBoolean());
+        return pool.invoke(task);
+    }
+
+    // Client-side equivalent of validateSchema: checks schemaInfo against the live versions of its type under the
+    // group's compatibility policy. Non-Avro schemas are accepted, as the registry does for them.
+    public boolean validate(SchemaRegistryClient client, String groupId, SchemaInfo schemaInfo) {
+        Schema candidate = avroSchema(schemaInfo);
+        if (candidate == null) {
+            return true;
+        }
+        CompatibilityPolicy policy = CompatibilityPolicy.of(ModelHelper.encode(client.getGroupProperties(groupId).getCompatibility()));
+        List<SchemaWithVersion> versions = client.getSchemaVersions(groupId, schemaInfo.getType());
+        List<Schema> previous = new ArrayList<>(versions.size());
+        for (SchemaWithVersion version : versions) {
+            previous.add(avroSchema(version.getSchemaInfo()));
+        }
+        return policy.isCompatible(candidate, previous, this);
+    }
+
+    private static Schema avroSchema(SchemaInfo schemaInfo) {
+        if (schemaInfo.getSerializationFormat() != SerializationFormat.Avro) {
+            return null;
+        }
+        byte[] bytes = new byte[schemaInfo.getSchemaData().remaining()];
+        schemaInfo.getSchemaData().duplicate().get(bytes);
+        return new Schema.Parser().parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    public long getPairsChecked() {
+        return pairsChecked.sum();
+    }
+
+    public CacheStats getMemoStats() {
+        return memo == null ? new CacheStats(0, 0, 0, 0, 0, 0) : memo.stats();
+    }
+
+    private final class AllMatch extends RecursiveTask<Boolean> {
+        private final IntPredicate check;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean failed;
+
+        private AllMatch(IntPredicate check, int from, int to, AtomicBoolean failed) {
+            this.check = check;
+            this.from = from;
+            this.to = to;
+            this.failed = failed;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to && !failed.get(); i++) {
+                    if (!check.test(i)) {
+                        failed.set(true);
+                    }
+                }
+                return !failed.get();
+            }
+            // this thread checks the oldest versions first, in the order the sequential loop would, while idle workers
+            // steal the newer halves
+            int middle = (from + to) >>> 1;
+            AllMatch right = new AllMatch(check, middle, to, failed);
+            right.fork();
+            boolean left = new AllMatch(check, from, middle, failed).compute();
+            return right.join() && left;
+        }
+    }
+
+    private static final class Pair {
+        private final HashCode reader;
+        private final HashCode writer;
+
+        private Pair(HashCode reader, HashCode writer) {
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair pair = (Pair) o;
+            return reader.equals(pair.reader) && writer.equals(pair.writer);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * reader.hashCode() + writer.hashCode();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package qe;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class CompatibilityEngineTests {
+    private static final int VERSIONS = 300;
+
+    // version i adds optional field fi with a default, so every version can read every other one
+    private static List<Schema> history(int versions) {
+        List<Schema> history = new ArrayList<>();
+        for (int i = 0; i < versions; i++) {
+            SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Evolving").fields().requiredString("id");
+            for (int f = 0; f < i; f++) {
+                fields = fields.optionalLong("f" + f);
+            }
+            history.add(fields.endRecord());
+        }
+        return history;
+    }
+
+    @Test
+    public void verifyTransitiveChecksMatchSequentialPolicy() {
+        List<Schema> previous = history(VERSIONS);
+        Schema candidate = history(VERSIONS + 1).get(VERSIONS);
+        // a required field without a default cannot be read from any older version
+        Schema breaking = SchemaBuilder.record("Evolving").fields().requiredString("id").requiredLong("f0").endRecord();
+        CompatibilityEngine engine = new CompatibilityEngine(new ForkJoinPool(4), 100_000, 8);
+
+        for (CompatibilityPolicy policy : CompatibilityPolicy.values()) {
+            for (Schema schema : new Schema[]{candidate, breaking}) {
+                assertEquals(policy + " isCompatible", policy.isCompatible(schema, previous),
+                        policy.isCompatible(schema, previous, engine));
+                assertEquals(policy + " canReadUsing", policy.canReadUsing(schema, previous),
+                        policy.canReadUsing(schema, previous, engine));
+            }
+        }
+        assertTrue(CompatibilityPolicy.BACKWARD_TRANSITIVE.isCompatible(candidate, previous, engine));
+        assertFalse(CompatibilityPolicy.BACKWARD_TRANSITIVE.isCompatible(breaking, previous, engine));
+        assertTrue(CompatibilityPolicy.FORWARD_TRANSITIVE.isCompatible(breaking, previous, engine));
+    }
+
+    @Test
+    public void verifyPairResultsAreMemoized() {
+        List<Schema> previous = history(VERSIONS);
+        List<Schema> candidates = history(VERSIONS + 1);
+        Schema candidate = candidates.get(VERSIONS);
+        Schema reparsed = new Schema.Parser().parse(candidate.toString());
+        CompatibilityEngine engine = new CompatibilityEngine(new ForkJoinPool(4), 100_000, 8);
+
+        long start = System.nanoTime();
+        assertTrue(CompatibilityPolicy.BACKWARD_TRANSITIVE.isCompatible(candidate, previous, engine));
+        long cold = System.nanoTime() - start;
+        assertEquals(VERSIONS, engine.getPairsChecked());
+
+        // the same candidate parsed again is equal to the first one, so every pair is a memo hit
+        start = System.nanoTime();
+        assertTrue(CompatibilityPolicy.BACKWARD_TRANSITIVE.isCompatible(reparsed, previous, engine));
+        long warm = System.nanoTime() - start;
+        assertEquals(VERSIONS, engine.getPairsChecked());
+        assertEquals(VERSIONS, engine.getMemoStats().hitCount());
+        System.out.println(String.format("backwardTransitive over %d versions: cold %.1f ms, memoized %.1f ms",
+                VERSIONS, cold / 1e6, warm / 1e6));
+    }
+
+    @Test
+    public void verifyFirstIncompatiblePairStopsTheCheck() {
+        List<Schema> previous = history(VERSIONS);
+        // the same nullable long every later version has, but without a default: only version 0, which has no f0,
+        // can't be read
+        Schema candidate = SchemaBuilder.record("Evolving").fields().requiredString("id")
+                .name("f0").type().unionOf().nullType().and().longType().endUnion().noDefault().endRecord();
+        for (int i = 0; i < VERSIONS; i++) {
+            assertEquals("version " + i, i != 0, CompatibilityPolicy.canRead(candidate, previous.get(i)));
+        }
+        CompatibilityEngine engine = new CompatibilityEngine(new ForkJoinPool(4), 0, 8);
+        assertFalse(engine.canReadAll(candidate, previous));
+        assertTrue("pairs checked " + engine.getPairsChecked(), engine.getPairsChecked() < VERSIONS);
+        CompatibilityEngine sequential = new CompatibilityEngine(null, 0, 8);
+        assertFalse(sequential.canReadAll(candidate, previous));
+        assertEquals(1, sequential.getPairsChecked());
+    }
+}
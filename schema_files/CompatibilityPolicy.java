@@ -0,0 +1,89 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.Compatibility;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+
+import java.util.List;
+
+// Avro compatibility rules for the policies the suite uses, keyed by their REST encoding.
+public enum CompatibilityPolicy {
+    ALLOW_ANY(io.pravega.schemaregistry.contract.data.Compatibility.allowAny()),
+    DENY_ALL(io.pravega.schemaregistry.contract.data.Compatibility.denyAll()),
+    BACKWARD(io.pravega.schemaregistry.contract.data.Compatibility.backward()),
+    FORWARD(io.pravega.schemaregistry.contract.data.Compatibility.forward()),
+    BACKWARD_TRANSITIVE(io.pravega.schemaregistry.contract.data.Compatibility.backwardTransitive()),
+    FORWARD_TRANSITIVE(io.pravega.schemaregistry.contract.data.Compatibility.forwardTransitive()),
+    FULL(io.pravega.schemaregistry.contract.data.Compatibility.full());
+
+    private final Compatibility encoded;
+
+    CompatibilityPolicy(io.pravega.schemaregistry.contract.data.Compatibility compatibility) {
+        this.encoded = ModelHelper.encode(compatibility);
+    }
+
+    public Compatibility getEncoded() {
+        return encoded;
+    }
+
+    public static CompatibilityPolicy of(Compatibility compatibility) {
+        for (CompatibilityPolicy policy : values()) {
+            if (policy.encoded.equals(compatibility)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported compatibility " + compatibility);
+    }
+
+    // previous holds the live versions of the same type, oldest first
+    public boolean isCompatible(Schema candidate, List<Schema> previous) {
+        return isCompatible(candidate, previous, CompatibilityEngine.DIRECT);
+    }
+
+    public boolean isCompatible(Schema candidate, List<Schema> previous, CompatibilityEngine engine) {
+        if (previous.isEmpty()) {
+            return true;
+        }
+        Schema latest = previous.get(previous.size() - 1);
+        switch (this) {
+            case ALLOW_ANY:
+                return true;
+            case DENY_ALL:
+                return false;
+            case BACKWARD:
+                return engine.canRead(candidate, latest);
+            case FORWARD:
+                return engine.canRead(latest, candidate);
+            case FULL:
+                return engine.canRead(candidate, latest) && engine.canRead(latest, candidate);
+            case BACKWARD_TRANSITIVE:
+                return engine.canReadAll(candidate, previous);
+            case FORWARD_TRANSITIVE:
+                return engine.allCanRead(previous, candidate);
+            default:
+                throw new IllegalStateException("Unhandled policy " + this);
+        }
+    }
+
+    // Only a backward transitive policy promises that readers can decode every older version,
+    // every other policy only guarantees the latest one.
+    public boolean canReadUsing(Schema reader, List<Schema> previous) {
+        return canReadUsing(reader, previous, CompatibilityEngine.DIRECT);
+    }
+
+    public boolean canReadUsing(Schema reader, List<Schema> previous, CompatibilityEngine engine) {
+        if (previous.isEmpty()) {
+            return true;
+        }
+        if (this == BACKWARD_TRANSITIVE) {
+            return engine.canReadAll(reader, previous);
+        }
+        return engine.canRead(reader, previous.get(previous.size() - 1));
+    }
+
+    public static boolean canRead(Schema reader, Schema writer) {
+        return SchemaCompatibility.checkReaderWriterCompatibility(reader, writer).getType()
+                == SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE;
+    }
+}
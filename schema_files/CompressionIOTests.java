@@ -8,7 +8,6 @@ import io.pravega.client.admin.impl.ReaderGroupManagerImpl;
 import io.pravega.client.admin.impl.StreamManagerImpl;
 import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
 import io.pravega.client.stream.*;
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 import io.pravega.schemaregistry.client.SchemaRegistryClient;
 import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
 import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
@@ -23,7 +22,6 @@ import io.pravega.schemaregistry.contract.generated.rest.model.EncodingInfo;
 import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
 import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
 import io.pravega.schemaregistry.serializers.SerializerFactory;
-import io.pravega.shared.NameUtils;
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericRecord;
@@ -35,7 +33,6 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.Response;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -49,15 +46,15 @@ import static org.junit.Assert.assertEquals;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class CompressionIOTests {
-    private static String schemaRegistryURI = "http://10.243.41.62:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.62:9092");
     private static String controllerURI = "tcp://10.243.41.90:9090";
     private static ClientConfig clientConfig;
     private static SchemaRegistryClient schemaRegistryClient;
     private static final String scope = "scope" + System.currentTimeMillis();
     private static final String stream = "stream";
     private static final String groupId = scope+"-"+stream;
-    private final CodecType MYCOMPRESSION = new CodecType("mycompression");
-    private final Random RANDOM = new Random();
+    private static final CodecType MYCOMPRESSION = RotateCodec.CODEC_TYPE;
+    private static final Random RANDOM = new Random();
     private final Schema SCHEMA1 = SchemaBuilder
             .record("MyTest")
             .fields()
@@ -85,10 +82,7 @@ public class CompressionIOTests {
 
     @AfterClass
     public static void tearDown(){
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        Client client = ClientBuilder.newClient(clientConfig);
+        Client client = RestClients.shared();
 
         String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupId).toString();
         Response response = client.target(resourceURl).request().delete();
@@ -117,33 +111,22 @@ public class CompressionIOTests {
                 .registryClient(schemaRegistryClient)
                 .build();
 
-        Serializer<Object> readerDeserializer = SerializerFactory.avroGenericDeserializer(serializerConfig2, null);
+        MeteredSerializer<Object> readerDeserializer = new MeteredSerializer<>(SerializerFactory.avroGenericDeserializer(serializerConfig2, null));
 
         ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
         String readerGroup = "rg" + stream + System.currentTimeMillis();
-        readerGroupManager.createReaderGroup(readerGroup,
-                ReaderGroupConfig.builder().stream(NameUtils.getScopedStreamName(scope, stream)).disableAutomaticCheckpoints().build());
+        readerGroupManager.createReaderGroup(readerGroup, EventDrain.boundedToTail(clientConfig, scope, stream));
         EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
         EventStreamReader<Object> reader = clientFactory.createReader("r2", readerGroup, readerDeserializer, ReaderConfig.builder().build());
 
-        List<Object> eList = new ArrayList<>();
-        EventRead<Object> event = reader.readNextEvent(10000);
-        while (event.isCheckpoint() || event.getEvent() != null) {
-            Object e = event.getEvent();
-            System.out.println("event read = " + e.toString());
-            eList.add(e);
-            event = reader.readNextEvent(10000);
-        }
-        assertEquals(3, eList.size());
+        EventDrain.Stats stats = new EventDrain<>(reader, readerDeserializer).drain(e -> { }).print(System.out);
+        assertEquals(3, stats.getEvents());
     }
 
     @Test
     public void test3_verifyCodecTypes(){
         // Verify codecs type using different compression formats
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        Client client = ClientBuilder.newClient(clientConfig);
+        Client client = RestClients.shared();
 
         String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupId+"/codecTypes").toString();
         Response response = client.target(resourceURl).request().get();
@@ -158,10 +141,7 @@ public class CompressionIOTests {
     @Test
     public void test4_verifyEncodingId(){
         // Register schema in the registry and use registry client to encode schema Id with payload
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        Client client = ClientBuilder.newClient(clientConfig);
+        Client client = RestClients.shared();
 
         String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupId+"/encodings/0").toString();
         Response response = client.target(resourceURl).request().get();
@@ -214,14 +194,19 @@ public class CompressionIOTests {
         writer.writeEvent(record).join();
     }
 
-    private String generateBigString(int sizeInKb) {
+    static String generateBigString(int sizeInKb) {
         byte[] array = new byte[1024 * sizeInKb];
         RANDOM.nextBytes(array);
         return Base64.getEncoder().encodeToString(array);
     }
 
 
-    private Codec createCustomCodec(){
+    static Codec createCustomCodec(){
+        return new RotateCodec();
+    }
+
+    // original copying implementation of the same codec, kept as the baseline for RotateCodecBenchmark
+    static Codec createLegacyCustomCodec(){
         Codec MY_CODEC = new Codec() {
             @Override
             public String getName() {
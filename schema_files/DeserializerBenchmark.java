@@ -0,0 +1,146 @@
+package qe;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// Reads Type1 events (a:string, b:int, c:int as in AvroCompatibilityP1Tests, plus `width` extra string columns) with
+// a reader that wants a and b: as full GenericRecords, as a projection of a and b, and into the specific Type1 class.
+// Run main() for the average time per op and gc.alloc.rate.norm (bytes allocated per event).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeserializerBenchmark {
+    static final String NAMESPACE = "io.pravega.schemaregistry.test.integrationtest.generated";
+
+    @Param({"generic", "projection", "specific"})
+    public String mode;
+
+    // extra columns after a, b and c: 0 is the test schema, 100 a wide record
+    @Param({"0", "100"})
+    public int width;
+
+    private CachingAvroDeserializer deserializer;
+    private ByteBuffer event;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Schema schema = type1(width);
+        SchemaResolutionCache cache = new SchemaResolutionCache(
+                encodingId -> new SchemaResolutionCache.Writer(schema, "", Collections.emptyMap()), 10);
+        deserializer = deserializer(mode, cache, schema);
+        event = event(schema, 0);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(event.duplicate());
+    }
+
+    static CachingAvroDeserializer deserializer(String mode, SchemaResolutionCache cache, Schema schema) {
+        switch (mode) {
+            case "generic":
+                return new CachingAvroDeserializer(cache, schema, Collections.emptyMap());
+            case "projection":
+                return CachingAvroDeserializer.projection(cache, schema, Collections.emptyMap(), "a", "b");
+            case "specific":
+                return CachingAvroDeserializer.specific(cache, Type1.class, Collections.emptyMap());
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    static Schema type1(int width) {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Type1").namespace(NAMESPACE).fields()
+                .requiredString("a").requiredInt("b").requiredInt("c");
+        for (int i = 0; i < width; i++) {
+            fields = fields.requiredString("column" + i);
+        }
+        return fields.endRecord();
+    }
+
+    // the registry wire format of one event: protocol byte, encoding id, datum
+    static ByteBuffer event(Schema schema, int encodingId) throws IOException {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("a", "writer-" + encodingId);
+        record.put("b", 1);
+        record.put("c", 2);
+        for (int i = 3; i < schema.getFields().size(); i++) {
+            record.put(i, "value of column " + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(1);
+        out.write(ByteBuffer.allocate(4).putInt(encodingId).array());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    // what avro-tools generates for Type1 {a: string, b: int}, trimmed to the SpecificRecord contract
+    public static class Type1 extends SpecificRecordBase {
+        public static final Schema SCHEMA$ = SchemaBuilder.record("Type1").namespace(NAMESPACE).fields()
+                .requiredString("a").requiredInt("b").endRecord();
+        public CharSequence a;
+        public int b;
+
+        @Override
+        public Schema getSchema() {
+            return SCHEMA$;
+        }
+
+        @Override
+        public Object get(int field) {
+            switch (field) {
+                case 0:
+                    return a;
+                case 1:
+                    return b;
+                default:
+                    throw new IndexOutOfBoundsException("Invalid index: " + field);
+            }
+        }
+
+        @Override
+        public void put(int field, Object value) {
+            switch (field) {
+                case 0:
+                    a = (CharSequence) value;
+                    break;
+                case 1:
+                    b = (Integer) value;
+                    break;
+                default:
+                    throw new IndexOutOfBoundsException("Invalid index: " + field);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DeserializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
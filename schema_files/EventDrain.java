@@ -0,0 +1,130 @@
+package qe;
+
+import io.pravega.client.ClientConfig;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.EventRead;
+import io.pravega.client.stream.EventStreamReader;
+import io.pravega.client.stream.ReaderGroupConfig;
+import io.pravega.client.stream.StreamCut;
+import io.pravega.shared.NameUtils;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// Reads events off a reader and hands each one to a consumer without buffering them. The drain stops as soon as
+// it has seen the expected number of events or the reader group reaches its end StreamCut (see boundedToTail), and
+// only falls back to the idle timeout when neither happens, so a test no longer ends with a fixed 10 s wait.
+public class EventDrain<T> {
+    private final EventStreamReader<T> reader;
+    private final MeteredSerializer<T> serializer;
+    private long expectedEvents = Long.MAX_VALUE;
+    private long idleTimeoutMillis = 10000;
+
+    // serializer is the reader's deserializer, used for bytes and deserialize latency; may be null
+    public EventDrain(EventStreamReader<T> reader, MeteredSerializer<T> serializer) {
+        this.reader = reader;
+        this.serializer = serializer;
+    }
+
+    public EventDrain<T> expecting(long expectedEvents) {
+        this.expectedEvents = expectedEvents;
+        return this;
+    }
+
+    public EventDrain<T> idleTimeout(Duration idleTimeout) {
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        return this;
+    }
+
+    public Stats drain(Consumer<? super T> consumer) {
+        Histogram latencyBefore = serializer == null ? null : serializer.getDeserializeLatency().copy();
+        long bytesBefore = serializer == null ? 0 : serializer.getDeserializedBytes();
+        long events = 0;
+        long start = System.nanoTime();
+        while (events < expectedEvents) {
+            EventRead<T> event = reader.readNextEvent(idleTimeoutMillis);
+            if (event.isCheckpoint()) {
+                continue;
+            }
+            if (event.getEvent() == null) {
+                // end StreamCut reached, or nothing arrived within the idle timeout
+                break;
+            }
+            consumer.accept(event.getEvent());
+            events++;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        Histogram deserializeLatency = null;
+        long bytes = 0;
+        if (serializer != null) {
+            deserializeLatency = serializer.getDeserializeLatency().copy();
+            deserializeLatency.subtract(latencyBefore);
+            bytes = serializer.getDeserializedBytes() - bytesBefore;
+        }
+        return new Stats(events, bytes, elapsedNanos, deserializeLatency);
+    }
+
+    // Reader group config over the whole stream that ends at its current tail.
+    public static ReaderGroupConfig boundedToTail(ClientConfig clientConfig, String scope, String stream) {
+        StreamCut tail;
+        try (StreamManager streamManager = StreamManager.create(clientConfig)) {
+            tail = streamManager.getStreamInfo(scope, stream).getTailStreamCut();
+        }
+        return ReaderGroupConfig.builder()
+                .stream(NameUtils.getScopedStreamName(scope, stream), StreamCut.UNBOUNDED, tail)
+                .disableAutomaticCheckpoints()
+                .build();
+    }
+
+    public static class Stats {
+        private final long events;
+        private final long bytes;
+        private final long elapsedNanos;
+        private final Histogram deserializeLatency;
+
+        private Stats(long events, long bytes, long elapsedNanos, Histogram deserializeLatency) {
+            this.events = events;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.deserializeLatency = deserializeLatency;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // per-event deserialize latency in ns, null when the drain had no MeteredSerializer
+        public Histogram getDeserializeLatency() {
+            return deserializeLatency;
+        }
+
+        public double getEventsPerSecond() {
+            return events / (elapsedNanos / 1e9);
+        }
+
+        public double getBytesPerSecond() {
+            return bytes / (elapsedNanos / 1e9);
+        }
+
+        public Stats print(PrintStream out) {
+            out.println(String.format("drained %d events (%d bytes) in %.1f ms: %.1f events/s, %.2f MB/s",
+                    events, bytes, elapsedNanos / 1e6, getEventsPerSecond(), getBytesPerSecond() / (1024 * 1024)));
+            if (deserializeLatency != null && deserializeLatency.getTotalCount() > 0) {
+                out.println(String.format("deserialize latency (us): p50 %.1f, p99 %.1f, p999 %.1f, max %.1f",
+                        deserializeLatency.getValueAtPercentile(50) / 1e3, deserializeLatency.getValueAtPercentile(99) / 1e3,
+                        deserializeLatency.getValueAtPercentile(99.9) / 1e3, deserializeLatency.getMaxValue() / 1e3));
+            }
+            return this;
+        }
+    }
+}
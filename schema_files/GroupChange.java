@@ -0,0 +1,96 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+
+// One change to a group, as GET /v1/groups/{g}/watch hands them out. Revisions count the group's changes from 1, with
+// no gaps. Only the fields of the kind are set: versionInfo and schemaInfo for schemas, encodingId and encodingInfo
+// for encodings, compatibility and codecType for the others.
+public class GroupChange {
+    public enum Kind { SCHEMA_ADDED, SCHEMA_DELETED, ENCODING_ADDED, COMPATIBILITY_CHANGED, CODEC_TYPE_ADDED }
+
+    private long revision;
+    private Kind kind;
+    private VersionInfo versionInfo;
+    private SchemaInfo schemaInfo;
+    private Integer encodingId;
+    private EncodingInfo encodingInfo;
+    private Compatibility compatibility;
+    private CodecType codecType;
+
+    public GroupChange() {
+    }
+
+    GroupChange(long revision, Kind kind) {
+        this.revision = revision;
+        this.kind = kind;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public VersionInfo getVersionInfo() {
+        return versionInfo;
+    }
+
+    public void setVersionInfo(VersionInfo versionInfo) {
+        this.versionInfo = versionInfo;
+    }
+
+    public SchemaInfo getSchemaInfo() {
+        return schemaInfo;
+    }
+
+    public void setSchemaInfo(SchemaInfo schemaInfo) {
+        this.schemaInfo = schemaInfo;
+    }
+
+    public Integer getEncodingId() {
+        return encodingId;
+    }
+
+    public void setEncodingId(Integer encodingId) {
+        this.encodingId = encodingId;
+    }
+
+    public EncodingInfo getEncodingInfo() {
+        return encodingInfo;
+    }
+
+    public void setEncodingInfo(EncodingInfo encodingInfo) {
+        this.encodingInfo = encodingInfo;
+    }
+
+    public Compatibility getCompatibility() {
+        return compatibility;
+    }
+
+    public void setCompatibility(Compatibility compatibility) {
+        this.compatibility = compatibility;
+    }
+
+    public CodecType getCodecType() {
+        return codecType;
+    }
+
+    public void setCodecType(CodecType codecType) {
+        this.codecType = codecType;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupChange{" + revision + " " + kind + "}";
+    }
+}
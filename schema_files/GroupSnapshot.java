@@ -0,0 +1,109 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.CodecType;
+import io.pravega.schemaregistry.contract.generated.rest.model.GroupHistoryRecord;
+import io.pravega.schemaregistry.contract.generated.rest.model.GroupProperties;
+import io.pravega.schemaregistry.contract.generated.rest.model.SchemaWithVersion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+// State of a group at a history revision: its properties, codec types and live schema versions, oldest first.
+// Revision r covers the first r history records, and apply() rolls the state forward with the records after them.
+// History only records added schemas, so epoch counts the other changes (compatibility updates, deleted versions,
+// new codec types): records may only be applied to a snapshot of the same epoch and of the same incarnation, since a
+// group deleted and created again starts its epochs over. -1 is a state replayed from a registry without snapshots,
+// which has no epoch to compare. Served by GET /v1/groups/{g}/history/snapshot.
+public class GroupSnapshot {
+    private int revision;
+    private long epoch;
+    private long incarnation = -1;
+    private GroupProperties groupProperties;
+    private List<SchemaWithVersion> schemas = new ArrayList<>();
+    private List<CodecType> codecTypes = new ArrayList<>();
+
+    public GroupSnapshot() {
+    }
+
+    public GroupSnapshot(int revision, long epoch, long incarnation, GroupProperties groupProperties,
+                         List<SchemaWithVersion> schemas, List<CodecType> codecTypes) {
+        this.revision = revision;
+        this.epoch = epoch;
+        this.incarnation = incarnation;
+        this.groupProperties = groupProperties;
+        this.schemas = schemas;
+        this.codecTypes = codecTypes;
+    }
+
+    // a new snapshot, this one is left as it is
+    public GroupSnapshot apply(List<GroupHistoryRecord> records) {
+        if (records.isEmpty()) {
+            return this;
+        }
+        List<SchemaWithVersion> rolled = new ArrayList<>(schemas.size() + records.size());
+        rolled.addAll(schemas);
+        for (GroupHistoryRecord record : records) {
+            rolled.add(new SchemaWithVersion().schemaInfo(record.getSchemaInfo()).versionInfo(record.getVersionInfo()));
+        }
+        return new GroupSnapshot(revision + records.size(), epoch, incarnation, groupProperties, rolled, codecTypes);
+    }
+
+    public Optional<SchemaWithVersion> latest(String type) {
+        for (int i = schemas.size() - 1; i >= 0; i--) {
+            if (schemas.get(i).getVersionInfo().getType().equals(type)) {
+                return Optional.of(schemas.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getIncarnation() {
+        return incarnation;
+    }
+
+    public void setIncarnation(long incarnation) {
+        this.incarnation = incarnation;
+    }
+
+    public GroupProperties getGroupProperties() {
+        return groupProperties;
+    }
+
+    public void setGroupProperties(GroupProperties groupProperties) {
+        this.groupProperties = groupProperties;
+    }
+
+    public List<SchemaWithVersion> getSchemas() {
+        return Collections.unmodifiableList(schemas);
+    }
+
+    public void setSchemas(List<SchemaWithVersion> schemas) {
+        this.schemas = schemas;
+    }
+
+    public List<CodecType> getCodecTypes() {
+        return Collections.unmodifiableList(codecTypes);
+    }
+
+    public void setCodecTypes(List<CodecType> codecTypes) {
+        this.codecTypes = codecTypes;
+    }
+}
@@ -0,0 +1,117 @@
+package qe;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Follows one group's changes by long-polling GET /v1/groups/{g}/watch on a daemon thread, and hands each change to
+// the listeners in revision order, on that thread, so they see a new version or encoding id about as soon as the
+// registry has it instead of on their next miss. A failed poll is retried with a backoff up to 30 s. A new incarnation
+// means the group was deleted and created again between polls: listeners get onReset before the new group's changes.
+// A deleted group ends the watch with onReset. Listeners should return quickly, the next poll waits for them.
+public class GroupWatcher implements AutoCloseable {
+    public interface Listener {
+        void onChange(String groupId, GroupChange change);
+
+        // whatever the listener holds for the group may be stale
+        default void onReset(String groupId) {
+        }
+    }
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final SchemaRegistryRestClient client;
+    private final String groupId;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private Duration pollTimeout = Duration.ofSeconds(30);
+    private volatile long revision = -1;
+    private volatile long incarnation = -1;
+    private volatile boolean running = true;
+
+    public GroupWatcher(SchemaRegistryRestClient client, String groupId) {
+        this.client = client;
+        this.groupId = groupId;
+        this.thread = new Thread(this::run, "group-watcher-" + groupId);
+        this.thread.setDaemon(true);
+    }
+
+    public GroupWatcher addListener(Listener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    // the changes after this revision are delivered first; by default only those after start()
+    public GroupWatcher from(long revision) {
+        this.revision = revision;
+        return this;
+    }
+
+    // how long one poll waits for a change; the registry caps it at 60 s
+    public GroupWatcher pollTimeout(Duration pollTimeout) {
+        this.pollTimeout = pollTimeout;
+        return this;
+    }
+
+    public GroupWatcher start() {
+        thread.start();
+        return this;
+    }
+
+    // revision of the last change delivered, -1 before the first poll
+    public long getRevision() {
+        return revision;
+    }
+
+    public boolean isRunning() {
+        return running && thread.isAlive();
+    }
+
+    private void run() {
+        long backoff = 100;
+        while (running) {
+            SchemaRegistryRestClient.Changes changes;
+            try {
+                changes = client.watch(groupId, incarnation, revision, pollTimeout);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                continue;
+            }
+            backoff = 100;
+            if (!running) {
+                return;
+            }
+            if (changes == null) {
+                listeners.forEach(listener -> listener.onReset(groupId));
+                running = false;
+                return;
+            }
+            // before the first answer only revisions going backwards give a recreated group away
+            boolean recreated = incarnation >= 0 ? changes.incarnation != incarnation
+                    : !changes.changes.isEmpty() && changes.changes.get(0).getRevision() <= revision;
+            if (recreated) {
+                listeners.forEach(listener -> listener.onReset(groupId));
+            }
+            for (GroupChange change : changes.changes) {
+                listeners.forEach(listener -> listener.onChange(groupId, change));
+            }
+            incarnation = changes.incarnation;
+            revision = changes.revision;
+        }
+    }
+
+    // stops after the poll in flight, which may take up to pollTimeout to return
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
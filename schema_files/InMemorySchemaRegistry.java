@@ -0,0 +1,1117 @@
+package qe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaParseException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.net.HttpURLConnection.*;
+
+// In-memory stand-in for the schema registry REST service (/v1/groups, /schemas, /encodings, /codecTypes,
+// /schemas/addedTo), plus endpoints the real service does not have:
+//   GET  /v1/schemas/fingerprint/{fp}                        groups and versions, like /schemas/addedTo
+//   GET  /v1/groups/{g}/schemas/versions/fingerprint/{fp}    VersionInfo; ?type=, ?exact=
+//   POST /v1/groups/{g}/schemas/batch                        [SchemaInfo] -> [VersionInfo], all or nothing
+//   GET  /v1/groups/{g}/history/snapshot                     GroupSnapshot, retaken every SNAPSHOT_INTERVAL records
+//   GET  /v1/groups/{g}/watch                                [GroupChange], long-polled; ?revision=, ?incarnation=,
+//                                                            ?timeoutMs=
+//   GET  /v1/groups/{g}/encodings                            [EncodingInfo], index is the encoding id
+//
+// Fingerprints are those of SchemaFingerprints; exact is SchemaFingerprints.exact of the full schema, for a version
+// whose defaults and aliases match too.
+// GET /v1/groups, /schemas/versions and /history take ?limit=&continuationToken= and set X-Continuation-Token while
+// more follow; with Accept: application/x-ndjson they stream one object per line (groups as CreateGroupRequest).
+// HEAD on the same paths answers X-Total-Count without a body.
+// GET /history also takes ?sinceRevision=r for the records after the first r, and answers X-Group-Epoch as
+// "incarnation-epoch" (see GroupSnapshot), so a client rebuilds group state from a snapshot and the records since.
+// The watch answers as soon as the group has changes after revision r, or with [] after t ms (default 30 s, at most
+// 60 s); X-Group-Revision and X-Group-Incarnation are what to pass next. Without r it waits for changes after the
+// current revision; an incarnation other than the group's answers at once with every change of the group.
+// GET /v1/groups/{g}, /schemas and /codecTypes carry an ETag of the group's generation and answer If-None-Match with
+// 304; /encodings/{id} never changes for the life of the group and is served with an immutable Cache-Control.
+// Bodies are JSON unless Content-Type / Accept ask for application/cbor or application/x-jackson-smile.
+// Binds an ephemeral port on loopback. Run the suite against it with -DschemaRegistryURI=embedded.
+public class InMemorySchemaRegistry implements AutoCloseable {
+    public static final String EMBEDDED = "embedded";
+    public static final String JSON = "application/json";
+    public static final String CONTINUATION_TOKEN = "X-Continuation-Token";
+    public static final String TOTAL_COUNT = "X-Total-Count";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String IMMUTABLE = "max-age=31536000, immutable";
+    public static final String EPOCH = "X-Group-Epoch";
+    public static final String REVISION = "X-Group-Revision";
+    public static final String INCARNATION = "X-Group-Incarnation";
+    private static final int DEFAULT_WATCH_MILLIS = 30_000;
+    private static final int MAX_WATCH_MILLIS = 60_000;
+    private static final int SNAPSHOT_INTERVAL = Integer.getInteger("registry.snapshotInterval", 100);
+    private static final int HTTP_EXPECTATION_FAILED = 417;
+    private static final Reply NOT_MODIFIED = new Reply(HTTP_NOT_MODIFIED, null);
+    private static InMemorySchemaRegistry shared;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final ObjectMapper cborMapper = BinaryJsonProvider.mapper(new CBORFactory());
+    private final ObjectMapper smileMapper = BinaryJsonProvider.mapper(new SmileFactory());
+    private final ConcurrentSkipListMap<String, Group> groups = new ConcurrentSkipListMap<>();
+    // groups.size() walks the whole skip list, so HEAD /v1/groups reads this instead
+    private final AtomicInteger groupCount = new AtomicInteger();
+    // fingerprint -> groups that have registered a schema with it; may name groups that no longer have it
+    private final ConcurrentHashMap<String, Set<String>> groupsByFingerprint = new ConcurrentHashMap<>();
+    // tells apart groups recreated under the same name, so their ETags never match the old group's
+    private final AtomicLong incarnations = new AtomicLong();
+
+    static {
+        // headers and body go out in separate writes; without this Nagle holds the body back for a delayed ACK
+        // (~40 ms) on every keep-alive connection
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private InMemorySchemaRegistry(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "in-memory-schema-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public static InMemorySchemaRegistry start() throws IOException {
+        return start(0);
+    }
+
+    public static InMemorySchemaRegistry start(int port) throws IOException {
+        InMemorySchemaRegistry registry = new InMemorySchemaRegistry(port);
+        registry.server.start();
+        return registry;
+    }
+
+    // Returns the -DschemaRegistryURI system property if set, otherwise defaultUri.
+    // The value "embedded" starts one shared in-memory registry for the whole JVM.
+    public static String resolveUri(String defaultUri) {
+        String uri = System.getProperty("schemaRegistryURI", defaultUri);
+        return EMBEDDED.equals(uri) ? shared().getUri() : uri;
+    }
+
+    public static synchronized InMemorySchemaRegistry shared() {
+        if (shared == null) {
+            try {
+                shared = start();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to start in-memory schema registry", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(shared::close));
+        }
+        return shared;
+    }
+
+    public String getUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // region routing
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Reply reply = route(exchange.getRequestMethod(), segments(exchange.getRequestURI().getRawPath()),
+                    query(exchange.getRequestURI().getRawQuery()), exchange);
+            send(exchange, reply);
+        } catch (RegistryException e) {
+            send(exchange, new Reply(e.status, e.getMessage()));
+        } catch (Exception e) {
+            send(exchange, new Reply(HTTP_INTERNAL_ERROR, String.valueOf(e)));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Reply route(String method, List<String> path, Map<String, String> query, HttpExchange exchange) throws IOException {
+        if (path.size() == 1 && path.get(0).equals("ping")) {
+            return new Reply(HTTP_OK, null);
+        }
+        if (path.size() < 2 || !path.get(0).equals("v1")) {
+            throw new RegistryException(HTTP_NOT_FOUND, "Unknown resource " + path);
+        }
+        if (path.size() == 3 && path.get(1).equals("schemas") && path.get(2).equals("addedTo") && method.equals("POST")) {
+            return new Reply(HTTP_OK, addedTo(read(exchange, SchemaInfo.class)));
+        }
+        if (path.size() == 4 && path.get(1).equals("schemas") && path.get(2).equals("fingerprint") && method.equals("GET")) {
+            return new Reply(HTTP_OK, addedTo(path.get(3)));
+        }
+        if (!path.get(1).equals("groups")) {
+            throw new RegistryException(HTTP_NOT_FOUND, "Unknown resource " + path);
+        }
+        if (path.size() == 2) {
+            switch (method) {
+                case "HEAD":
+                    return count(exchange, groupCount.get());
+                case "GET":
+                    return listGroups(query, exchange);
+                case "POST":
+                    createGroup(read(exchange, CreateGroupRequest.class));
+                    return new Reply(HTTP_CREATED, null);
+                default:
+                    throw notAllowed(method, path);
+            }
+        }
+        String groupName = path.get(2);
+        List<String> rest = path.subList(3, path.size());
+        String resource = String.join("/", rest);
+        if (rest.isEmpty()) {
+            switch (method) {
+                case "GET":
+                    Group group = group(groupName);
+                    return notModified(exchange, group.etag()) ? NOT_MODIFIED : new Reply(HTTP_OK, group.properties);
+                case "DELETE":
+                    Group removed = groups.remove(groupName);
+                    if (removed == null) {
+                        throw new RegistryException(HTTP_NOT_FOUND, "Group " + groupName + " not found");
+                    }
+                    groupCount.decrementAndGet();
+                    removed.remove();
+                    for (String fingerprint : removed.fingerprints()) {
+                        groupsByFingerprint.computeIfPresent(fingerprint, (k, names) -> {
+                            names.remove(groupName);
+                            return names.isEmpty() ? null : names;
+                        });
+                    }
+                    return new Reply(HTTP_NO_CONTENT, null);
+                default:
+                    throw notAllowed(method, path);
+            }
+        }
+        Group group = group(groupName);
+        switch (method + " " + rest.get(0)) {
+            case "PUT compatibility":
+                group.updateCompatibility(read(exchange, UpdateCompatibilityRequest.class));
+                return new Reply(HTTP_OK, null);
+            case "GET history":
+                if (rest.size() == 1) {
+                    int limit = limit(query);
+                    // read before the records, like the ETags, so a change in between is never hidden
+                    exchange.getResponseHeaders().set(EPOCH, group.incarnation + "-" + group.epoch());
+                    int after = query.containsKey("sinceRevision") ? parseInt(query.get("sinceRevision")) - 1 : after(query);
+                    List<GroupHistoryRecord> records = page(group.history(after, fetch(limit)), limit,
+                            r -> String.valueOf(r.getVersionInfo().getId()), exchange);
+                    return streaming(exchange) ? ndjson(records.iterator()) : new Reply(HTTP_OK, new GroupHistory().history(records));
+                }
+                if (rest.size() == 2 && rest.get(1).equals("snapshot")) {
+                    return new Reply(HTTP_OK, group.snapshot());
+                }
+                break;
+            case "HEAD history":
+                return count(exchange, group.historySize());
+            case "GET watch":
+                if (rest.size() == 1) {
+                    int timeout = Math.min(MAX_WATCH_MILLIS, query.containsKey("timeoutMs") ? parseInt(query.get("timeoutMs")) : DEFAULT_WATCH_MILLIS);
+                    int revision = query.containsKey("revision") ? parseInt(query.get("revision")) : -1;
+                    boolean sameGroup = !query.containsKey("incarnation") || Long.parseLong(query.get("incarnation")) == group.incarnation;
+                    Watch watch = sameGroup ? group.changesAfter(revision, timeout) : group.changesAfter(0, 0);
+                    exchange.getResponseHeaders().set(REVISION, String.valueOf(watch.revision));
+                    exchange.getResponseHeaders().set(INCARNATION, String.valueOf(group.incarnation));
+                    return new Reply(HTTP_OK, watch.changes);
+                }
+                break;
+            case "GET codecTypes":
+                return notModified(exchange, group.etag()) ? NOT_MODIFIED : new Reply(HTTP_OK, group.codecTypes());
+            case "POST codecTypes":
+                group.addCodecType(read(exchange, CodecType.class));
+                return new Reply(HTTP_CREATED, null);
+            case "PUT encodings":
+                return new Reply(HTTP_OK, group.encodingId(read(exchange, GetEncodingIdRequest.class)));
+            case "GET encodings":
+                if (rest.size() == 2) {
+                    int encodingId = parseInt(rest.get(1));
+                    EncodingInfo encodingInfo = group.encodingInfo(encodingId);
+                    exchange.getResponseHeaders().set("Cache-Control", IMMUTABLE);
+                    return notModified(exchange, group.incarnation + "-e" + encodingId) ? NOT_MODIFIED
+                            : new Reply(HTTP_OK, encodingInfo);
+                }
+                if (rest.size() == 1) {
+                    return new Reply(HTTP_OK, group.encodingInfos());
+                }
+                break;
+            default:
+                break;
+        }
+        if (resource.equals("schemas")) {
+            switch (method) {
+                case "GET":
+                    return notModified(exchange, group.etag()) ? NOT_MODIFIED : new Reply(HTTP_OK, group.latestSchemas(query.get("type")));
+                case "POST":
+                    VersionInfo versionInfo = group.addSchema(read(exchange, SchemaInfo.class));
+                    index(groupName, group.byId(versionInfo.getId()));
+                    return new Reply(HTTP_CREATED, versionInfo);
+                default:
+                    throw notAllowed(method, path);
+            }
+        }
+        if (method.equals("POST") && resource.equals("schemas/batch")) {
+            List<VersionInfo> versionInfos = group.addSchemas(Arrays.asList(read(exchange, SchemaInfo[].class)));
+            for (VersionInfo versionInfo : versionInfos) {
+                index(groupName, group.byId(versionInfo.getId()));
+            }
+            return new Reply(HTTP_CREATED, versionInfos);
+        }
+        if (method.equals("GET") && resource.equals("schemas/versions")) {
+            int limit = limit(query);
+            List<SchemaWithVersion> versions = page(group.schemaVersions(query.get("type"), after(query), fetch(limit)), limit,
+                    v -> String.valueOf(v.getVersionInfo().getId()), exchange);
+            return streaming(exchange) ? ndjson(versions.iterator()) : new Reply(HTTP_OK, new SchemaVersionsList().schemas(versions));
+        }
+        if (method.equals("HEAD") && resource.equals("schemas/versions")) {
+            return count(exchange, group.countSchemaVersions(query.get("type")));
+        }
+        if (method.equals("GET") && rest.size() == 4 && resource.startsWith("schemas/versions/fingerprint/")) {
+            return new Reply(HTTP_OK, group.findByFingerprint(rest.get(3), query.get("type"), query.get("exact")));
+        }
+        if (method.equals("POST") && resource.equals("schemas/versions/find")) {
+            return new Reply(HTTP_OK, group.find(read(exchange, SchemaInfo.class)));
+        }
+        if (method.equals("POST") && resource.equals("schemas/versions/validate")) {
+            return new Reply(HTTP_OK, group.validate(read(exchange, ValidateRequest.class)));
+        }
+        if (method.equals("POST") && resource.equals("schemas/versions/canRead")) {
+            return new Reply(HTTP_OK, group.canRead(read(exchange, SchemaInfo.class)));
+        }
+        if (rest.size() == 3 && rest.get(0).equals("schemas") && rest.get(1).equals("schema")) {
+            SchemaRecord record = group.byId(parseInt(rest.get(2)));
+            return schemaRecord(method, path, group, record);
+        }
+        if (rest.size() == 7 && rest.get(0).equals("schemas") && rest.get(1).equals("format")
+                && rest.get(3).equals("type") && rest.get(5).equals("versions")) {
+            SchemaRecord record = group.byVersion(rest.get(2), rest.get(4), parseInt(rest.get(6)));
+            return schemaRecord(method, path, group, record);
+        }
+        throw new RegistryException(HTTP_NOT_FOUND, "Unknown resource " + path);
+    }
+
+    private Reply schemaRecord(String method, List<String> path, Group group, SchemaRecord record) {
+        switch (method) {
+            case "GET":
+                return new Reply(HTTP_OK, record.schemaInfo);
+            case "DELETE":
+                group.delete(record);
+                return new Reply(HTTP_NO_CONTENT, null);
+            default:
+                throw notAllowed(method, path);
+        }
+    }
+    // endregion
+
+    // region top level resources
+    private Reply listGroups(Map<String, String> query, HttpExchange exchange) {
+        String token = query.get("continuationToken");
+        NavigableMap<String, Group> tail = token == null || token.isEmpty() ? groups : groups.tailMap(token, false);
+        if (streaming(exchange) && !query.containsKey("limit")) {
+            // straight off the skip list iterator, so a full listing never holds more than one group at a time
+            return ndjson(tail.entrySet().stream().map(e -> groupLine(e.getKey(), e.getValue())).iterator());
+        }
+        int limit = limit(query);
+        List<Map.Entry<String, Group>> entries = page(tail.entrySet().stream().limit(fetch(limit)).collect(Collectors.toList()),
+                limit, Map.Entry::getKey, exchange);
+        if (streaming(exchange)) {
+            return ndjson(entries.stream().map(e -> groupLine(e.getKey(), e.getValue())).iterator());
+        }
+        Map<String, GroupProperties> result = new LinkedHashMap<>();
+        String last = token;
+        for (Map.Entry<String, Group> entry : entries) {
+            result.put(entry.getKey(), entry.getValue().properties);
+            last = entry.getKey();
+        }
+        return new Reply(HTTP_OK, new ListGroupsResponse().groups(result).continuationToken(last));
+    }
+
+    private static CreateGroupRequest groupLine(String groupName, Group group) {
+        return new CreateGroupRequest().groupName(groupName).groupProperties(group.properties);
+    }
+
+    private void createGroup(CreateGroupRequest request) {
+        if (request.getGroupName() == null || request.getGroupName().isEmpty() || request.getGroupProperties() == null) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Group name and properties are required");
+        }
+        if (groups.putIfAbsent(request.getGroupName(), new Group(request.getGroupProperties(), incarnations.incrementAndGet())) != null) {
+            throw new RegistryException(HTTP_CONFLICT, "Group " + request.getGroupName() + " already exists");
+        }
+        groupCount.incrementAndGet();
+    }
+
+    private AddedTo addedTo(SchemaInfo schemaInfo) {
+        String key = schemaKey(schemaInfo);
+        Schema avroSchema = parse(schemaInfo);
+        // only the groups that registered the same canonical form can hold an exact match
+        Collection<String> candidates = avroSchema == null ? groups.keySet()
+                : groupsByFingerprint.getOrDefault(SchemaFingerprints.crc64(avroSchema), Collections.emptySet());
+        Map<String, VersionInfo> result = new TreeMap<>();
+        for (String name : candidates) {
+            Group group = groups.get(name);
+            SchemaRecord record = group == null ? null : group.lookup(key);
+            if (record != null) {
+                result.put(name, record.versionInfo);
+            }
+        }
+        return new AddedTo().groups(result);
+    }
+
+    private AddedTo addedTo(String fingerprint) {
+        checkFingerprint(fingerprint);
+        Map<String, VersionInfo> result = new TreeMap<>();
+        for (String name : groupsByFingerprint.getOrDefault(fingerprint, Collections.emptySet())) {
+            Group group = groups.get(name);
+            VersionInfo versionInfo = group == null ? null : group.latestByFingerprint(fingerprint, null);
+            if (versionInfo != null) {
+                result.put(name, versionInfo);
+            }
+        }
+        return new AddedTo().groups(result);
+    }
+
+    private void index(String groupName, SchemaRecord record) {
+        if (record.crc64 != null) {
+            groupsByFingerprint.computeIfAbsent(record.crc64, k -> ConcurrentHashMap.newKeySet()).add(groupName);
+            groupsByFingerprint.computeIfAbsent(record.sha256, k -> ConcurrentHashMap.newKeySet()).add(groupName);
+        }
+    }
+
+    private Group group(String groupName) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw new RegistryException(HTTP_NOT_FOUND, "Group " + groupName + " not found");
+        }
+        return group;
+    }
+    // endregion
+
+    private static final class SchemaRecord {
+        private final SchemaInfo schemaInfo;
+        private final VersionInfo versionInfo;
+        private final Schema avroSchema;
+        private final String key;
+        // Avro only
+        private final String crc64;
+        private final String sha256;
+        private final String exact;
+        private volatile boolean deleted;
+
+        private SchemaRecord(SchemaInfo schemaInfo, VersionInfo versionInfo, Schema avroSchema, String key) {
+            this.schemaInfo = schemaInfo;
+            this.versionInfo = versionInfo;
+            this.avroSchema = avroSchema;
+            this.key = key;
+            this.crc64 = avroSchema == null ? null : SchemaFingerprints.crc64(avroSchema);
+            this.sha256 = avroSchema == null ? null : SchemaFingerprints.sha256(avroSchema);
+            this.exact = avroSchema == null ? null : SchemaFingerprints.exact(avroSchema);
+        }
+    }
+
+    private static final class Group {
+        private final long incarnation;
+        // bumped by every change to the properties, schemas or codec types
+        private volatile long generation;
+        // changes the history does not record: compatibility updates, deletes and new codec types
+        private long epoch;
+        private GroupSnapshot snapshot;
+        // every change, for watchers; a change's revision is its index + 1
+        private final List<GroupChange> changes = new ArrayList<>();
+        private boolean removed;
+        private volatile GroupProperties properties;
+        // index in the list is the schema id / encoding id
+        private final List<SchemaRecord> schemas = new ArrayList<>();
+        private final Map<String, List<SchemaRecord>> versionsByType = new LinkedHashMap<>();
+        private final Map<String, SchemaRecord> schemasByKey = new HashMap<>();
+        // both fingerprints of every Avro version, oldest first
+        private final Map<String, List<SchemaRecord>> schemasByFingerprint = new HashMap<>();
+        private final Map<String, CodecType> codecTypes = new LinkedHashMap<>();
+        private final List<EncodingInfo> encodings = new ArrayList<>();
+        private final Map<String, Integer> encodingIds = new HashMap<>();
+        // live versions in total and per type, kept up to date on add and delete so counting them is O(1)
+        private int liveVersions;
+        private final Map<String, Integer> liveVersionsByType = new HashMap<>();
+        private final List<GroupHistoryRecord> history = new ArrayList<>();
+
+        private Group(GroupProperties properties, long incarnation) {
+            this.properties = properties;
+            this.incarnation = incarnation;
+        }
+
+        // Read before the body is built, so a concurrent change can only make the tag older than the body. The client
+        // then refetches once more, but is never told that stale data is current.
+        String etag() {
+            return incarnation + "-" + generation;
+        }
+
+        synchronized void updateCompatibility(UpdateCompatibilityRequest request) {
+            CompatibilityPolicy.of(request.getCompatibility());
+            if (request.getPreviousCompatibility() != null
+                    && !request.getPreviousCompatibility().equals(properties.getCompatibility())) {
+                throw new RegistryException(HTTP_CONFLICT, "Previous compatibility does not match");
+            }
+            properties = new GroupProperties()
+                    .serializationFormat(properties.getSerializationFormat())
+                    .compatibility(request.getCompatibility())
+                    .allowMultipleTypes(properties.isAllowMultipleTypes())
+                    .properties(properties.getProperties());
+            generation++;
+            epoch++;
+            change(GroupChange.Kind.COMPATIBILITY_CHANGED).setCompatibility(request.getCompatibility());
+        }
+
+        synchronized VersionInfo addSchema(SchemaInfo schemaInfo) {
+            checkFormat(schemaInfo);
+            String key = schemaKey(schemaInfo);
+            SchemaRecord existing = lookup(key);
+            if (existing != null) {
+                return existing.versionInfo;
+            }
+            if (!Boolean.TRUE.equals(properties.isAllowMultipleTypes())
+                    && versionsByType.keySet().stream().anyMatch(t -> !t.equals(schemaInfo.getType()) && hasLiveVersions(t))) {
+                throw new RegistryException(HTTP_CONFLICT, "Group does not allow multiple types");
+            }
+            List<SchemaRecord> versions = versionsByType.computeIfAbsent(schemaInfo.getType(), t -> new ArrayList<>());
+            Schema avroSchema = parse(schemaInfo);
+            if (avroSchema != null) {
+                CompatibilityPolicy policy = policy(properties.getCompatibility());
+                if (!policy.isCompatible(avroSchema, liveAvroSchemas(versions), CompatibilityEngine.shared())) {
+                    throw new RegistryException(HTTP_CONFLICT, "Schema is incompatible with policy " + policy);
+                }
+            }
+            return append(schemaInfo, avroSchema, key).versionInfo;
+        }
+
+        // All or nothing: each schema is checked against the live versions plus the schemas before it in the batch,
+        // and only when every one passes are they appended, under one lock. Schemas that are already registered,
+        // or repeated within the batch, resolve to their existing version like addSchema.
+        synchronized List<VersionInfo> addSchemas(List<SchemaInfo> schemaInfos) {
+            Map<String, List<Schema>> pendingByType = new HashMap<>();
+            Map<String, Integer> pendingByKey = new HashMap<>();
+            // only a single-type group needs the types that are live already, and finding them is O(types)
+            boolean multipleTypes = Boolean.TRUE.equals(properties.isAllowMultipleTypes());
+            Set<String> types = new HashSet<>();
+            if (!multipleTypes) {
+                versionsByType.keySet().stream().filter(this::hasLiveVersions).forEach(types::add);
+            }
+            CompatibilityPolicy policy = policy(properties.getCompatibility());
+            String[] keys = new String[schemaInfos.size()];
+            Schema[] avroSchemas = new Schema[schemaInfos.size()];
+            for (int i = 0; i < schemaInfos.size(); i++) {
+                SchemaInfo schemaInfo = schemaInfos.get(i);
+                try {
+                    checkFormat(schemaInfo);
+                } catch (RegistryException e) {
+                    throw new RegistryException(e.status, "Schema " + i + ": " + e.getMessage());
+                }
+                keys[i] = schemaKey(schemaInfo);
+                if (lookup(keys[i]) != null || pendingByKey.putIfAbsent(keys[i], i) != null) {
+                    continue;
+                }
+                if (!multipleTypes && types.add(schemaInfo.getType()) && types.size() > 1) {
+                    throw new RegistryException(HTTP_CONFLICT, "Schema " + i + ": group does not allow multiple types");
+                }
+                avroSchemas[i] = parse(schemaInfo);
+                if (avroSchemas[i] != null) {
+                    List<Schema> previous = pendingByType.computeIfAbsent(schemaInfo.getType(),
+                            t -> new ArrayList<>(liveAvroSchemas(versionsByType.get(t))));
+                    if (!policy.isCompatible(avroSchemas[i], previous, CompatibilityEngine.shared())) {
+                        throw new RegistryException(HTTP_CONFLICT, "Schema " + i + " (" + schemaInfo.getType()
+                                + ") is incompatible with policy " + policy);
+                    }
+                    previous.add(avroSchemas[i]);
+                }
+            }
+            List<VersionInfo> result = new ArrayList<>(schemaInfos.size());
+            for (int i = 0; i < schemaInfos.size(); i++) {
+                SchemaRecord existing = lookup(keys[i]);
+                result.add(existing != null ? existing.versionInfo : append(schemaInfos.get(i), avroSchemas[i], keys[i]).versionInfo);
+            }
+            return result;
+        }
+
+        private SchemaRecord append(SchemaInfo schemaInfo, Schema avroSchema, String key) {
+            List<SchemaRecord> versions = versionsByType.computeIfAbsent(schemaInfo.getType(), t -> new ArrayList<>());
+            VersionInfo versionInfo = new VersionInfo()
+                    .type(schemaInfo.getType())
+                    .serializationFormat(formatName(schemaInfo.getSerializationFormat()))
+                    .version(versions.size())
+                    .id(schemas.size());
+            SchemaRecord record = new SchemaRecord(schemaInfo, versionInfo, avroSchema, key);
+            schemas.add(record);
+            versions.add(record);
+            schemasByKey.put(key, record);
+            liveVersions++;
+            liveVersionsByType.merge(schemaInfo.getType(), 1, Integer::sum);
+            generation++;
+            if (record.crc64 != null) {
+                schemasByFingerprint.computeIfAbsent(record.crc64, k -> new ArrayList<>()).add(record);
+                schemasByFingerprint.computeIfAbsent(record.sha256, k -> new ArrayList<>()).add(record);
+            }
+            history.add(new GroupHistoryRecord()
+                    .schemaInfo(schemaInfo)
+                    .versionInfo(versionInfo)
+                    .compatibility(properties.getCompatibility())
+                    .timestamp(System.currentTimeMillis())
+                    .schemaString(new String(schemaInfo.getSchemaData(), StandardCharsets.UTF_8)));
+            GroupChange change = change(GroupChange.Kind.SCHEMA_ADDED);
+            change.setVersionInfo(versionInfo);
+            change.setSchemaInfo(schemaInfo);
+            return record;
+        }
+
+        synchronized SchemaVersionsList latestSchemas(String type) {
+            List<SchemaWithVersion> result = new ArrayList<>();
+            versionsByType.forEach((t, versions) -> {
+                if (type != null && !type.equals(t)) {
+                    return;
+                }
+                for (int i = versions.size() - 1; i >= 0; i--) {
+                    if (!versions.get(i).deleted) {
+                        result.add(withVersion(versions.get(i)));
+                        break;
+                    }
+                }
+            });
+            return new SchemaVersionsList().schemas(result);
+        }
+
+        // live versions with an id above `after`, at most max of them
+        synchronized List<SchemaWithVersion> schemaVersions(String type, int after, int max) {
+            List<SchemaWithVersion> result = new ArrayList<>();
+            for (int id = Math.max(0, after + 1); id < schemas.size() && result.size() < max; id++) {
+                SchemaRecord record = schemas.get(id);
+                if (!record.deleted && (type == null || type.equals(record.versionInfo.getType()))) {
+                    result.add(withVersion(record));
+                }
+            }
+            return result;
+        }
+
+        synchronized int countSchemaVersions(String type) {
+            return type == null ? liveVersions : liveVersionsByType.getOrDefault(type, 0);
+        }
+
+        synchronized VersionInfo find(SchemaInfo schemaInfo) {
+            SchemaRecord record = lookup(schemaKey(schemaInfo));
+            if (record == null) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Schema not found");
+            }
+            return record.versionInfo;
+        }
+
+        synchronized VersionInfo findByFingerprint(String fingerprint, String type, String exact) {
+            checkFingerprint(fingerprint);
+            VersionInfo versionInfo = exact == null ? latestByFingerprint(fingerprint, type) : exactByFingerprint(fingerprint, type, exact);
+            if (versionInfo == null) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Schema with fingerprint " + fingerprint + " not found");
+            }
+            return versionInfo;
+        }
+
+        // versions that differ only in docs or defaults share a fingerprint; the latest live one wins
+        synchronized VersionInfo latestByFingerprint(String fingerprint, String type) {
+            List<SchemaRecord> records = schemasByFingerprint.getOrDefault(fingerprint, Collections.emptyList());
+            for (int i = records.size() - 1; i >= 0; i--) {
+                SchemaRecord record = records.get(i);
+                if (!record.deleted && (type == null || type.equals(record.versionInfo.getType()))) {
+                    return record.versionInfo;
+                }
+            }
+            return null;
+        }
+
+        // among the versions sharing the fingerprint, the one whose full schema hashes to exact
+        private VersionInfo exactByFingerprint(String fingerprint, String type, String exact) {
+            for (SchemaRecord record : schemasByFingerprint.getOrDefault(fingerprint, Collections.emptyList())) {
+                if (!record.deleted && exact.equals(record.exact) && (type == null || type.equals(record.versionInfo.getType()))) {
+                    return record.versionInfo;
+                }
+            }
+            return null;
+        }
+
+        synchronized Set<String> fingerprints() {
+            return new HashSet<>(schemasByFingerprint.keySet());
+        }
+
+        synchronized Valid validate(ValidateRequest request) {
+            SchemaInfo schemaInfo = request.getSchemaInfo();
+            checkFormat(schemaInfo);
+            Schema avroSchema = parse(schemaInfo);
+            if (avroSchema == null) {
+                return new Valid().valid(true);
+            }
+            CompatibilityPolicy policy = policy(request.getCompatibility() != null
+                    ? request.getCompatibility() : properties.getCompatibility());
+            return new Valid().valid(policy.isCompatible(avroSchema, liveAvroSchemas(versionsByType.get(schemaInfo.getType())),
+                    CompatibilityEngine.shared()));
+        }
+
+        synchronized CanRead canRead(SchemaInfo schemaInfo) {
+            Schema avroSchema = parse(schemaInfo);
+            if (avroSchema == null) {
+                return new CanRead().compatible(true);
+            }
+            CompatibilityPolicy policy = policy(properties.getCompatibility());
+            return new CanRead().compatible(policy.canReadUsing(avroSchema, liveAvroSchemas(versionsByType.get(schemaInfo.getType())),
+                    CompatibilityEngine.shared()));
+        }
+
+        synchronized SchemaRecord byId(int id) {
+            if (id < 0 || id >= schemas.size()) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Schema " + id + " not found");
+            }
+            return schemas.get(id);
+        }
+
+        synchronized SchemaRecord byVersion(String format, String type, int version) {
+            List<SchemaRecord> versions = versionsByType.get(type);
+            if (versions == null || version < 0 || version >= versions.size()
+                    || !versions.get(version).versionInfo.getSerializationFormat().equalsIgnoreCase(format)) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Schema " + type + " version " + version + " not found");
+            }
+            return versions.get(version);
+        }
+
+        // deleting a deleted version again changes nothing, so ETags, snapshots and watchers are left alone
+        synchronized void delete(SchemaRecord record) {
+            if (record.deleted) {
+                return;
+            }
+            liveVersions--;
+            liveVersionsByType.merge(record.versionInfo.getType(), -1, Integer::sum);
+            record.deleted = true;
+            schemasByKey.remove(record.key, record);
+            generation++;
+            epoch++;
+            change(GroupChange.Kind.SCHEMA_DELETED).setVersionInfo(record.versionInfo);
+        }
+
+        synchronized void addCodecType(CodecType codecType) {
+            if (codecTypes.putIfAbsent(codecType.getName(), codecType) == null) {
+                generation++;
+                epoch++;
+                change(GroupChange.Kind.CODEC_TYPE_ADDED).setCodecType(codecType);
+            }
+        }
+
+        synchronized CodecTypes codecTypes() {
+            return new CodecTypes().codecTypes(new ArrayList<>(codecTypes.values()));
+        }
+
+        synchronized EncodingId encodingId(GetEncodingIdRequest request) {
+            VersionInfo versionInfo = request.getVersionInfo();
+            SchemaRecord record = byId(versionInfo.getId());
+            if (!record.versionInfo.getType().equals(versionInfo.getType())
+                    || !record.versionInfo.getVersion().equals(versionInfo.getVersion())) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Version " + versionInfo + " not found");
+            }
+            String codecName = request.getCodecType() == null ? "" : request.getCodecType();
+            CodecType codecType = codecName.isEmpty() ? new CodecType().name("") : codecTypes.get(codecName);
+            if (codecType == null) {
+                throw new RegistryException(HTTP_PRECON_FAILED, "Codec type " + codecName + " is not registered");
+            }
+            String key = versionInfo.getId() + "/" + codecName;
+            Integer id = encodingIds.get(key);
+            if (id == null) {
+                EncodingInfo encodingInfo = new EncodingInfo().schemaInfo(record.schemaInfo).versionInfo(record.versionInfo).codecType(codecType);
+                encodings.add(encodingInfo);
+                id = encodings.size() - 1;
+                encodingIds.put(key, id);
+                GroupChange change = change(GroupChange.Kind.ENCODING_ADDED);
+                change.setEncodingId(id);
+                change.setEncodingInfo(encodingInfo);
+            }
+            return new EncodingId().encodingId(id);
+        }
+
+        synchronized EncodingInfo encodingInfo(int encodingId) {
+            if (encodingId < 0 || encodingId >= encodings.size()) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Encoding " + encodingId + " not found");
+            }
+            return encodings.get(encodingId);
+        }
+
+        synchronized List<EncodingInfo> encodingInfos() {
+            return new ArrayList<>(encodings);
+        }
+
+        // one record per added schema, so a record's index is its schema id
+        synchronized List<GroupHistoryRecord> history(int after, int max) {
+            int from = Math.max(0, after + 1);
+            int to = (int) Math.min(history.size(), (long) from + max);
+            return from >= to ? new ArrayList<>() : new ArrayList<>(history.subList(from, to));
+        }
+
+        synchronized int historySize() {
+            return history.size();
+        }
+
+        synchronized long epoch() {
+            return epoch;
+        }
+
+        // Changes after `revision`, waiting up to timeoutMillis for the first one; a negative revision waits for
+        // changes after the current one. A revision ahead of this group's is from a group of the same name deleted
+        // since, so it gets every change of this one; callers that pass the incarnation catch the other cases too.
+        synchronized Watch changesAfter(int revision, long timeoutMillis) {
+            int after = revision < 0 ? changes.size() : revision > changes.size() ? 0 : revision;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            try {
+                long remaining;
+                while (!removed && changes.size() <= after && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RegistryException(HTTP_UNAVAILABLE, "Interrupted while watching");
+            }
+            if (removed) {
+                throw new RegistryException(HTTP_NOT_FOUND, "Group deleted");
+            }
+            return new Watch(changes.size(), new ArrayList<>(changes.subList(after, changes.size())));
+        }
+
+        synchronized void remove() {
+            removed = true;
+            notifyAll();
+        }
+
+        // appended under the group's lock, with the kind's fields set by the caller before the lock is released
+        private GroupChange change(GroupChange.Kind kind) {
+            GroupChange change = new GroupChange(changes.size() + 1, kind);
+            changes.add(change);
+            notifyAll();
+            return change;
+        }
+
+        // Retaken once SNAPSHOT_INTERVAL records were added after the last one or the epoch moved on; in between
+        // readers get the older snapshot and the records after it, so taking one costs O(versions) once per interval.
+        synchronized GroupSnapshot snapshot() {
+            if (snapshot == null || snapshot.getEpoch() != epoch || history.size() - snapshot.getRevision() >= SNAPSHOT_INTERVAL) {
+                List<SchemaWithVersion> live = schemas.stream().filter(r -> !r.deleted).map(Group::withVersion)
+                        .collect(Collectors.toList());
+                snapshot = new GroupSnapshot(history.size(), epoch, incarnation, properties, live,
+                        new ArrayList<>(codecTypes.values()));
+            }
+            return snapshot;
+        }
+
+        synchronized SchemaRecord lookup(String key) {
+            SchemaRecord record = schemasByKey.get(key);
+            return record == null || record.deleted ? null : record;
+        }
+
+        private void checkFormat(SchemaInfo schemaInfo) {
+            SerializationFormat.SerializationFormatEnum groupFormat = properties.getSerializationFormat().getSerializationFormat();
+            if (groupFormat != SerializationFormat.SerializationFormatEnum.ANY
+                    && groupFormat != schemaInfo.getSerializationFormat().getSerializationFormat()) {
+                throw new RegistryException(HTTP_EXPECTATION_FAILED, "Serialization format " + schemaInfo.getSerializationFormat()
+                        + " does not match group format " + groupFormat);
+            }
+        }
+
+        private boolean hasLiveVersions(String type) {
+            return liveVersionsByType.getOrDefault(type, 0) > 0;
+        }
+
+        private static List<Schema> liveAvroSchemas(List<SchemaRecord> versions) {
+            if (versions == null) {
+                return Collections.emptyList();
+            }
+            return versions.stream().filter(r -> !r.deleted && r.avroSchema != null)
+                    .map(r -> r.avroSchema).collect(Collectors.toList());
+        }
+
+        private static SchemaWithVersion withVersion(SchemaRecord record) {
+            return new SchemaWithVersion().schemaInfo(record.schemaInfo).versionInfo(record.versionInfo);
+        }
+    }
+
+    // region helpers
+    private static CompatibilityPolicy policy(Compatibility compatibility) {
+        try {
+            return CompatibilityPolicy.of(compatibility);
+        } catch (IllegalArgumentException e) {
+            throw new RegistryException(HTTP_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static Schema parse(SchemaInfo schemaInfo) {
+        if (schemaInfo.getSerializationFormat() == null
+                || schemaInfo.getSerializationFormat().getSerializationFormat() != SerializationFormat.SerializationFormatEnum.AVRO) {
+            return null;
+        }
+        try {
+            return new Schema.Parser().parse(new String(schemaInfo.getSchemaData(), StandardCharsets.UTF_8));
+        } catch (SchemaParseException e) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Invalid avro schema: " + e.getMessage());
+        }
+    }
+
+    private static String schemaKey(SchemaInfo schemaInfo) {
+        Schema avroSchema = parse(schemaInfo);
+        String canonical = avroSchema != null ? avroSchema.toString() : new String(schemaInfo.getSchemaData(), StandardCharsets.UTF_8);
+        return schemaInfo.getType() + "/" + formatName(schemaInfo.getSerializationFormat()) + "/" + canonical;
+    }
+
+    private static String formatName(SerializationFormat format) {
+        return format.getSerializationFormat() == SerializationFormat.SerializationFormatEnum.CUSTOM
+                ? format.getFullTypeName() : format.getSerializationFormat().toString();
+    }
+
+    private static void checkFingerprint(String fingerprint) {
+        if (!SchemaFingerprints.isFingerprint(fingerprint)) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Invalid fingerprint " + fingerprint
+                    + ", expected " + SchemaFingerprints.CRC64_LENGTH + " or " + SchemaFingerprints.SHA256_LENGTH + " hex digits");
+        }
+    }
+
+    private static int limit(Map<String, String> query) {
+        if (!query.containsKey("limit")) {
+            return Integer.MAX_VALUE;
+        }
+        int limit = parseInt(query.get("limit"));
+        if (limit < 1) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Invalid limit " + limit);
+        }
+        return limit;
+    }
+
+    // one more than the page, to tell whether another page follows
+    private static int fetch(int limit) {
+        return limit == Integer.MAX_VALUE ? limit : limit + 1;
+    }
+
+    // continuation tokens of versions and history are the last schema id returned
+    private static int after(Map<String, String> query) {
+        String token = query.get("continuationToken");
+        return token == null || token.isEmpty() ? -1 : parseInt(token);
+    }
+
+    // Trims items fetched with fetch(limit) to the page and, if that dropped any, sets the token to resume after it.
+    private static <T> List<T> page(List<T> items, int limit, Function<T, String> token, HttpExchange exchange) {
+        if (items.size() <= limit) {
+            return items;
+        }
+        List<T> page = items.subList(0, limit);
+        exchange.getResponseHeaders().set(CONTINUATION_TOKEN, token.apply(page.get(limit - 1)));
+        return page;
+    }
+
+    private static boolean streaming(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains(NDJSON);
+    }
+
+    private static Reply ndjson(Iterator<?> items) {
+        return new Reply(HTTP_OK, new NdJson(items));
+    }
+
+    // each representation of a resource gets its own tag
+    private static boolean notModified(HttpExchange exchange, String tag) {
+        String format = format(exchange.getRequestHeaders().getFirst("Accept"));
+        String etag = "\"" + tag + (format.equals(JSON) ? "" : "+" + format.substring(format.indexOf('/') + 1)) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (candidate.trim().equals(etag) || candidate.trim().equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Reply count(HttpExchange exchange, long count) {
+        exchange.getResponseHeaders().set(TOTAL_COUNT, String.valueOf(count));
+        return new Reply(HTTP_OK, null);
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Invalid number " + value);
+        }
+    }
+
+    private static RegistryException notAllowed(String method, List<String> path) {
+        return new RegistryException(HTTP_BAD_METHOD, method + " not allowed on " + path);
+    }
+
+    private static List<String> segments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    // CBOR or Smile if the media types name them, JSON otherwise
+    private static String format(String mediaTypes) {
+        if (mediaTypes != null) {
+            if (mediaTypes.contains(BinaryJsonProvider.CBOR)) {
+                return BinaryJsonProvider.CBOR;
+            }
+            if (mediaTypes.contains(BinaryJsonProvider.SMILE)) {
+                return BinaryJsonProvider.SMILE;
+            }
+        }
+        return JSON;
+    }
+
+    private ObjectMapper mapper(String format) {
+        switch (format) {
+            case BinaryJsonProvider.CBOR:
+                return cborMapper;
+            case BinaryJsonProvider.SMILE:
+                return smileMapper;
+            default:
+                return mapper;
+        }
+    }
+
+    private <T> T read(HttpExchange exchange, Class<T> type) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            T value = mapper(format(exchange.getRequestHeaders().getFirst("Content-Type"))).readValue(in, type);
+            if (value == null) {
+                throw new RegistryException(HTTP_BAD_REQUEST, "Missing request body");
+            }
+            return value;
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new RegistryException(HTTP_BAD_REQUEST, "Malformed request body: " + e.getOriginalMessage());
+        }
+    }
+
+    private void send(HttpExchange exchange, Reply reply) throws IOException {
+        if (reply.body instanceof NdJson) {
+            stream(exchange, reply.status, ((NdJson) reply.body).items);
+            return;
+        }
+        byte[] body;
+        if (reply.body == null) {
+            body = new byte[0];
+        } else if (reply.body instanceof String) {
+            body = ((String) reply.body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        } else {
+            String format = format(exchange.getRequestHeaders().getFirst("Accept"));
+            body = mapper(format).writeValueAsBytes(reply.body);
+            exchange.getResponseHeaders().set("Content-Type", format);
+            exchange.getResponseHeaders().set("Vary", "Accept");
+        }
+        // an empty reply completes the exchange inside sendResponseHeaders, and HttpServer drops the keep-alive
+        // connection if the request body hasn't been read to the end by then
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(reply.status, reply.status == HTTP_NO_CONTENT || body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    // chunked, each item serialized as it is written, so the response is never built in memory
+    private void stream(HttpExchange exchange, int status, Iterator<?> items) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", NDJSON);
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(status, 0);
+        ObjectWriter writer = mapper.writer();
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024)) {
+            while (items.hasNext()) {
+                out.write(writer.writeValueAsBytes(items.next()));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static final class NdJson {
+        private final Iterator<?> items;
+
+        private NdJson(Iterator<?> items) {
+            this.items = items;
+        }
+    }
+
+    private static final class Watch {
+        private final int revision;
+        private final List<GroupChange> changes;
+
+        private Watch(int revision, List<GroupChange> changes) {
+            this.revision = revision;
+            this.changes = changes;
+        }
+    }
+
+    private static final class Reply {
+        private final int status;
+        private final Object body;
+
+        private Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class RegistryException extends RuntimeException {
+        private final int status;
+
+        private RegistryException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    // endregion
+}
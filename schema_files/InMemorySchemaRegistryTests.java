@@ -0,0 +1,490 @@
+package qe;
+
+import com.google.common.collect.Iterators;
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static javax.ws.rs.core.Response.Status.*;
+import static org.junit.Assert.*;
+
+public class InMemorySchemaRegistryTests {
+    private static InMemorySchemaRegistry registry;
+    private static String schemaRegistryURI;
+    private static String resourceURl;
+    private static Client client;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        registry = InMemorySchemaRegistry.start();
+        schemaRegistryURI = registry.getUri();
+        client = RestClients.shared();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void verifyRegistryBindsEphemeralPort() throws Exception {
+        assertTrue(URI.create(schemaRegistryURI).getPort() > 0);
+        try (InMemorySchemaRegistry second = InMemorySchemaRegistry.start()) {
+            assertNotEquals(schemaRegistryURI, second.getUri());
+            Response response = client.target(second.getUri() + "/ping").request().get();
+            assertEquals("Ping status", OK.getStatusCode(), response.getStatus());
+        }
+    }
+
+    @Test
+    public void verifySchemaAndEncodingLookups() {
+        String groupName = "grpLookups";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), false);
+        String schemaType = "Type1";
+        String schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        Response response = createSchema(groupName, schemaType, schemaData);
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), response.getStatus());
+        // registering the same schema again returns the existing version
+        response = createSchema(groupName, schemaType, schemaData);
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), response.getStatus());
+        VersionInfo versionInfo = response.readEntity(VersionInfo.class);
+        assertEquals(new Integer(0), versionInfo.getVersion());
+        assertEquals(new Integer(0), versionInfo.getId());
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/codecTypes").toString();
+        response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(new CodecType().name("mycompression")));
+        assertEquals("Add new codec to Group status", CREATED.getStatusCode(), response.getStatus());
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/encodings").toString();
+        Invocation.Builder builder = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE);
+        response = builder.put(Entity.json(new GetEncodingIdRequest().versionInfo(versionInfo).codecType("mycompression")));
+        assertEquals("Get encodingId status", OK.getStatusCode(), response.getStatus());
+        assertEquals(new Integer(0), response.readEntity(EncodingId.class).getEncodingId());
+        response = builder.put(Entity.json(new GetEncodingIdRequest().versionInfo(versionInfo).codecType("unknown")));
+        assertEquals("Get encodingId status", PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/encodings/0").toString();
+        response = client.target(resourceURl).request().get();
+        assertEquals("Get encodingInfo status", OK.getStatusCode(), response.getStatus());
+        EncodingInfo encodingInfo = response.readEntity(EncodingInfo.class);
+        assertEquals(schemaType, encodingInfo.getVersionInfo().getType());
+        assertEquals("mycompression", encodingInfo.getCodecType().getName());
+        List<EncodingInfo> encodingInfos = new SchemaRegistryRestClient(client, schemaRegistryURI).getEncodingInfos(groupName);
+        assertEquals(1, encodingInfos.size());
+        assertEquals(encodingInfo.getVersionInfo(), encodingInfos.get(0).getVersionInfo());
+
+        // adding a field without default breaks backward compatibility
+        schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"},{\"name\":\"b\",\"type\":\"int\"}]}";
+        response = createSchema(groupName, schemaType, schemaData);
+        assertEquals("addSchemasToGroup status", CONFLICT.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void verifyUnknownGroupIsNotFound() {
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpMissing/schemas").toString();
+        Response response = client.target(resourceURl).request().get();
+        assertEquals("Get schemas status", NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void verifyFingerprintLookups() {
+        String schemaType = "Fingerprinted";
+        String schemaData = "{\"type\":\"record\",\"name\":\"Fingerprinted\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        // same canonical form: docs and attribute order do not count
+        String reordered = "{\"name\":\"Fingerprinted\",\"doc\":\"reordered\",\"fields\":[{\"type\":\"string\",\"name\":\"a\"}],\"type\":\"record\"}";
+        String crc64 = SchemaFingerprints.crc64(schemaData.getBytes());
+        String sha256 = SchemaFingerprints.sha256(schemaData.getBytes());
+        assertEquals(crc64, SchemaFingerprints.crc64(reordered.getBytes()));
+        assertEquals(SchemaFingerprints.CRC64_LENGTH, crc64.length());
+        assertEquals(SchemaFingerprints.SHA256_LENGTH, sha256.length());
+
+        createGroup("grpFingerprint1", io.pravega.schemaregistry.contract.data.Compatibility.backward(), false);
+        createGroup("grpFingerprint2", io.pravega.schemaregistry.contract.data.Compatibility.backward(), false);
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema("grpFingerprint1", schemaType, schemaData).getStatus());
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        assertFalse(restClient.findVersionByFingerprint("grpFingerprint2", crc64).isPresent());
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema("grpFingerprint2", schemaType, reordered).getStatus());
+
+        VersionInfo versionInfo = restClient.findVersionByFingerprint("grpFingerprint1", crc64).get();
+        assertEquals(schemaType, versionInfo.getType());
+        assertEquals(new Integer(0), versionInfo.getVersion());
+        assertEquals(versionInfo, restClient.findVersionByFingerprint("grpFingerprint1", sha256).get());
+        assertEquals(2, restClient.groupsByFingerprint(crc64).size());
+
+        SchemaInfo schemaInfo = new SchemaInfo()
+                .type(schemaType)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(reordered.getBytes())
+                .properties(Collections.emptyMap());
+        // findVersion matches the full schema like /schemas/versions/find: the doc only counts there
+        assertFalse(restClient.findVersion("grpFingerprint1", schemaInfo).isPresent());
+        assertEquals(new Integer(0), restClient.findVersion("grpFingerprint2", schemaInfo).get().getVersion());
+
+        // a new default shares the fingerprint but changes how readers resolve data, so it is a version of its own
+        String withDefault = "{\"type\":\"record\",\"name\":\"Fingerprinted\",\"fields\":[{\"name\":\"a\",\"type\":\"string\",\"default\":\"x\"}]}";
+        assertEquals(crc64, SchemaFingerprints.crc64(withDefault.getBytes()));
+        schemaInfo = avro(schemaType, withDefault);
+        assertFalse(restClient.findVersion("grpFingerprint1", schemaInfo).isPresent());
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema("grpFingerprint1", schemaType, withDefault).getStatus());
+        assertEquals(new Integer(1), restClient.findVersion("grpFingerprint1", schemaInfo).get().getVersion());
+        assertEquals(versionInfo, restClient.findVersion("grpFingerprint1", avro(schemaType, schemaData)).get());
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/schemas/fingerprint/not-a-fingerprint").toString();
+        Response response = client.target(resourceURl).request().get();
+        assertEquals("Get by fingerprint status", BAD_REQUEST.getStatusCode(), response.getStatus());
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpFingerprint2").toString();
+        response = client.target(resourceURl).request().delete();
+        assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
+        assertEquals(Collections.singleton("grpFingerprint1"), restClient.groupsByFingerprint(crc64).keySet());
+    }
+
+    @Test
+    public void verifyBatchIsAllOrNothing() {
+        createGroup("grpBatch", io.pravega.schemaregistry.contract.data.Compatibility.backwardTransitive(), true);
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        String v0 = "{\"type\":\"record\",\"name\":\"Batch\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        String v1 = "{\"type\":\"record\",\"name\":\"Batch\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"},"
+                + "{\"name\":\"b\",\"type\":\"int\",\"default\":0}]}";
+        // cannot read v0 data: c has no default
+        String broken = "{\"type\":\"record\",\"name\":\"Batch\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"},"
+                + "{\"name\":\"c\",\"type\":\"int\"}]}";
+        String other = "{\"type\":\"record\",\"name\":\"Other\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+
+        // the broken schema is only incompatible with v0, which is earlier in the same batch
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpBatch/schemas/batch").toString();
+        Response response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(Arrays.asList(avro("Batch", v0), avro("Other", other), avro("Batch", broken))));
+        assertEquals("addSchemas status", CONFLICT.getStatusCode(), response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("Schema 2"));
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpBatch/schemas/versions").toString();
+        assertEquals(0, client.target(resourceURl).request().get().readEntity(SchemaVersionsList.class).getSchemas().size());
+
+        List<VersionInfo> versionInfos = restClient.addSchemas("grpBatch",
+                Arrays.asList(avro("Batch", v0), avro("Other", other), avro("Batch", v1), avro("Batch", v0)));
+        assertEquals(4, versionInfos.size());
+        assertEquals(new Integer(0), versionInfos.get(0).getVersion());
+        assertEquals(new Integer(0), versionInfos.get(1).getVersion());
+        assertEquals(new Integer(1), versionInfos.get(2).getVersion());
+        assertEquals(versionInfos.get(0), versionInfos.get(3));
+        // already registered schemas resolve to their versions
+        assertEquals(versionInfos.subList(1, 3), restClient.addSchemas("grpBatch", Arrays.asList(avro("Other", other), avro("Batch", v1))));
+        assertEquals(3, client.target(resourceURl).request().get().readEntity(SchemaVersionsList.class).getSchemas().size());
+    }
+
+    @Test
+    public void verifyPagedAndStreamedListings() {
+        String groupName = "grpPaging";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.allowAny(), true);
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        List<SchemaInfo> schemaInfos = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            schemaInfos.add(avro("Paged" + i, "{\"type\":\"record\",\"name\":\"Paged" + i + "\",\"fields\":[]}"));
+        }
+        restClient.addSchemas(groupName, schemaInfos);
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas/schema/10").toString();
+        assertEquals("deleteSchema status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+
+        // pages skip the deleted id, and the last one has no continuation token
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas/versions").toString();
+        String token = null;
+        List<Integer> pageSizes = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        do {
+            WebTarget target = client.target(resourceURl).queryParam("limit", 10);
+            Response response = (token == null ? target : target.queryParam("continuationToken", token)).request().get();
+            assertEquals("getSchemaVersions status", OK.getStatusCode(), response.getStatus());
+            pageSizes.add(response.readEntity(SchemaVersionsList.class).getSchemas().size());
+            token = response.getHeaderString(InMemorySchemaRegistry.CONTINUATION_TOKEN);
+            tokens.add(token);
+        } while (token != null);
+        assertEquals(Arrays.asList(10, 10, 4), pageSizes);
+        assertEquals(Arrays.asList("9", "20", null), tokens);
+
+        assertEquals(24, Iterators.size(restClient.schemaVersions(groupName, null, 7)));
+        assertEquals(1, Iterators.size(restClient.schemaVersions(groupName, "Paged3", 7)));
+        assertEquals(24, restClient.countSchemaVersions(groupName, null));
+        assertEquals(1, restClient.countSchemaVersions(groupName, "Paged3"));
+        assertEquals(25, restClient.countHistory(groupName));
+        assertEquals(25, Iterators.size(restClient.history(groupName, 10)));
+        assertEquals(restClient.countGroups(), Iterators.size(restClient.listGroups(1)));
+
+        List<SchemaWithVersion> streamed = new ArrayList<>();
+        assertEquals(24, restClient.streamSchemaVersions(groupName, null, streamed::add));
+        assertEquals("Paged0", streamed.get(0).getVersionInfo().getType());
+        assertEquals(new Integer(11), streamed.get(10).getVersionInfo().getId());
+        assertEquals(25, restClient.streamHistory(groupName, r -> { }));
+        List<String> groupNames = new ArrayList<>();
+        restClient.streamGroups(g -> groupNames.add(g.getGroupName()));
+        assertTrue(groupNames.contains(groupName));
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/history").toString();
+        Response response = client.target(resourceURl).queryParam("limit", 5).request(InMemorySchemaRegistry.NDJSON).get();
+        assertEquals(InMemorySchemaRegistry.NDJSON, response.getHeaderString("Content-Type"));
+        assertEquals(5, response.readEntity(String.class).split("\n").length);
+        assertEquals("4", response.getHeaderString(InMemorySchemaRegistry.CONTINUATION_TOKEN));
+    }
+
+    @Test
+    public void verifyGroupStateFromSnapshotAndHistory() {
+        String groupName = "grpSnapshot";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.allowAny(), true);
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        List<SchemaInfo> schemaInfos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            schemaInfos.add(avro("Snap" + i, "{\"type\":\"record\",\"name\":\"Snap" + i + "\",\"fields\":[]}"));
+        }
+        restClient.addSchemas(groupName, schemaInfos);
+        GroupSnapshot state = restClient.groupState(groupName, null);
+        assertEquals(120, state.getRevision());
+        assertEquals(120, state.getSchemas().size());
+
+        // fewer records than the snapshot interval: the snapshot stays at 120 and the rest comes from history
+        restClient.addSchemas(groupName, Arrays.asList(avro("Snap0", "{\"type\":\"record\",\"name\":\"Snap0\",\"fields\":[{\"name\":\"a\",\"type\":\"int\"}]}"),
+                avro("Late", "{\"type\":\"record\",\"name\":\"Late\",\"fields\":[]}")));
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/history/snapshot").toString();
+        Response response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).get();
+        assertEquals("getSnapshot status", OK.getStatusCode(), response.getStatus());
+        assertEquals(120, response.readEntity(GroupSnapshot.class).getRevision());
+        assertEquals(1, restClient.historySince(groupName, 121).size());
+        GroupSnapshot rolled = restClient.groupState(groupName, state);
+        assertEquals(122, rolled.getRevision());
+        assertEquals(new Integer(1), rolled.latest("Snap0").get().getVersionInfo().getVersion());
+        assertEquals(new Integer(121), rolled.latest("Late").get().getVersionInfo().getId());
+        assertEquals(rolled.getSchemas().size(), restClient.groupState(groupName, null).getSchemas().size());
+
+        // changes history does not record send the client back to a fresh snapshot
+        UpdateCompatibilityRequest updateCompatibilityRequest = new UpdateCompatibilityRequest()
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()));
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/compatibility").toString();
+        assertEquals("updateCompatibility status", OK.getStatusCode(),
+                client.target(resourceURl).request().put(Entity.json(updateCompatibilityRequest)).getStatus());
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas/schema/5").toString();
+        assertEquals("deleteSchema status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+        GroupSnapshot rebuilt = restClient.groupState(groupName, rolled);
+        assertEquals(122, rebuilt.getRevision());
+        assertEquals(121, rebuilt.getSchemas().size());
+        assertFalse(rebuilt.latest("Snap5").isPresent());
+        assertEquals(updateCompatibilityRequest.getCompatibility(), rebuilt.getGroupProperties().getCompatibility());
+    }
+
+    @Test
+    public void verifyGroupStateRebuildsRecreatedGroup() {
+        String groupName = "grpSnapshotRecreate";
+        String schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), true);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema(groupName, "Old" + i, schemaData).getStatus());
+        }
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        GroupSnapshot old = restClient.groupState(groupName, null);
+        assertEquals(2, old.getRevision());
+
+        // the new group reports the same epoch and gets past the old revision
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName).toString();
+        assertEquals("deleteGroup status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema(groupName, "New" + i, schemaData).getStatus());
+        }
+        GroupSnapshot state = restClient.groupState(groupName, old);
+        assertEquals(old.getEpoch(), state.getEpoch());
+        assertNotEquals(old.getIncarnation(), state.getIncarnation());
+        assertEquals(3, state.getRevision());
+        assertEquals(3, state.getSchemas().size());
+        assertFalse(state.latest("Old0").isPresent());
+        assertTrue(state.latest("New0").isPresent());
+    }
+
+    @Test
+    public void verifyWatchDeliversChangesInOrder() throws Exception {
+        String groupName = "grpWatch";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), false);
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        // nothing happens: the poll waits out its timeout and answers the current revision
+        SchemaRegistryRestClient.Changes changes = restClient.watch(groupName, -1, Duration.ofMillis(200));
+        assertTrue(changes.changes.isEmpty());
+        assertEquals(0, changes.revision);
+
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        try (GroupWatcher watcher = new GroupWatcher(restClient, groupName).from(0).pollTimeout(Duration.ofSeconds(1))
+                .addListener(new GroupWatcher.Listener() {
+                    @Override
+                    public void onChange(String groupId, GroupChange change) {
+                        received.add(change);
+                    }
+
+                    @Override
+                    public void onReset(String groupId) {
+                        received.add(groupId);
+                    }
+                }).start()) {
+            String schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+            Response response = createSchema(groupName, "Type1", schemaData);
+            assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), response.getStatus());
+            VersionInfo versionInfo = response.readEntity(VersionInfo.class);
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/codecTypes").toString();
+            response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(new CodecType().name("mycompression")));
+            assertEquals("Add new codec to Group status", CREATED.getStatusCode(), response.getStatus());
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/encodings").toString();
+            response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE)
+                    .put(Entity.json(new GetEncodingIdRequest().versionInfo(versionInfo).codecType("mycompression")));
+            assertEquals("Get encodingId status", OK.getStatusCode(), response.getStatus());
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas/schema/0").toString();
+            assertEquals("deleteSchema status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+
+            List<GroupChange.Kind> kinds = Arrays.asList(GroupChange.Kind.SCHEMA_ADDED, GroupChange.Kind.CODEC_TYPE_ADDED,
+                    GroupChange.Kind.ENCODING_ADDED, GroupChange.Kind.SCHEMA_DELETED);
+            for (int i = 0; i < kinds.size(); i++) {
+                GroupChange change = (GroupChange) received.poll(5, TimeUnit.SECONDS);
+                assertNotNull("change " + (i + 1), change);
+                assertEquals(kinds.get(i), change.getKind());
+                assertEquals(i + 1, change.getRevision());
+            }
+            // the encoding change carries what a reader would otherwise fetch on its first miss
+            changes = restClient.watch(groupName, 2, Duration.ofMillis(200));
+            assertEquals(4, changes.revision);
+            assertEquals(new Integer(0), changes.changes.get(0).getEncodingId());
+            assertEquals("mycompression", changes.changes.get(0).getEncodingInfo().getCodecType().getName());
+
+            // deleting the group resets the listeners and ends the watch
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName).toString();
+            assertEquals("deleteGroup status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+            assertEquals(groupName, received.poll(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (watcher.isRunning() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(watcher.isRunning());
+        }
+        assertNull(restClient.watch(groupName, -1, Duration.ofMillis(10)));
+    }
+
+    @Test
+    public void verifyRepeatedDeleteChangesNothing() {
+        String groupName = "grpDeleteTwice";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), false);
+        String schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema(groupName, "Type1", schemaData).getStatus());
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        String schemasURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas").toString();
+        String etag = null;
+        for (String version : new String[]{"schema/0", "schema/0", "format/Avro/type/Type1/versions/0"}) {
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas/"+version).toString();
+            assertEquals("deleteSchema status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+            Response response = client.target(schemasURl).request().get();
+            assertEquals("Get schemas status", OK.getStatusCode(), response.getStatus());
+            response.close();
+            if (etag != null) {
+                assertEquals(etag, response.getHeaderString("ETag"));
+            }
+            etag = response.getHeaderString("ETag");
+            // one add and one delete, however often the version is deleted
+            assertEquals(2, restClient.watch(groupName, 0, Duration.ofMillis(10)).changes.size());
+        }
+    }
+
+    @Test
+    public void verifyWatchResetsOnRecreatedGroup() throws Exception {
+        String groupName = "grpWatchRecreate";
+        String schemaData = "{\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+        createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), true);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema(groupName, "Old" + i, schemaData).getStatus());
+        }
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        SchemaRegistryRestClient.Changes old = restClient.watch(groupName, -1, 0, Duration.ofMillis(200));
+        assertEquals(2, old.revision);
+
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        CountDownLatch recreated = new CountDownLatch(1);
+        try (GroupWatcher watcher = new GroupWatcher(restClient, groupName).from(0).pollTimeout(Duration.ofSeconds(1))
+                .addListener(new GroupWatcher.Listener() {
+                    @Override
+                    public void onChange(String groupId, GroupChange change) {
+                        received.add(change);
+                        try {
+                            // holds the watcher between polls while the group is deleted and created again
+                            recreated.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void onReset(String groupId) {
+                        received.add(groupId);
+                    }
+                }).start()) {
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+            resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName).toString();
+            assertEquals("deleteGroup status", NO_CONTENT.getStatusCode(), client.target(resourceURl).request().delete().getStatus());
+            createGroup(groupName, io.pravega.schemaregistry.contract.data.Compatibility.backward(), true);
+            // the new group gets past the old one's revision, so the revision alone no longer gives it away
+            for (int i = 0; i < 3; i++) {
+                assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), createSchema(groupName, "New" + i, schemaData).getStatus());
+            }
+            SchemaRegistryRestClient.Changes changes = restClient.watch(groupName, old.incarnation, old.revision, Duration.ofMillis(200));
+            assertNotEquals(old.incarnation, changes.incarnation);
+            assertEquals(3, changes.changes.size());
+            assertEquals(1, changes.changes.get(0).getRevision());
+            recreated.countDown();
+
+            assertEquals(2, ((GroupChange) received.poll(5, TimeUnit.SECONDS)).getRevision());
+            assertEquals(groupName, received.poll(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 3; i++) {
+                GroupChange change = (GroupChange) received.poll(5, TimeUnit.SECONDS);
+                assertNotNull("change " + i, change);
+                assertEquals(i, change.getRevision());
+                assertEquals("New" + (i - 1), change.getVersionInfo().getType());
+            }
+        }
+    }
+
+    private static SchemaInfo avro(String schemaType, String schemaData) {
+        return new SchemaInfo()
+                .type(schemaType)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.getBytes())
+                .properties(Collections.emptyMap());
+    }
+
+    private void createGroup(String groupName, io.pravega.schemaregistry.contract.data.Compatibility compatibility, boolean allowMultipleTypes) {
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new SerializationFormat().serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(compatibility))
+                .allowMultipleTypes(allowMultipleTypes);
+        createGroupRequest.setGroupProperties(mygroup);
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups").toString();
+        Response response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(createGroupRequest));
+        assertEquals("Create Group status for "+groupName, CREATED.getStatusCode(), response.getStatus());
+    }
+
+    private Response createSchema(String groupName, String schemaType, String schemaData) {
+        SchemaInfo schemaInfo = new SchemaInfo()
+                .type(schemaType)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.getBytes())
+                .properties(Collections.emptyMap());
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName+"/schemas").toString();
+        return client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(schemaInfo));
+    }
+}
@@ -0,0 +1,145 @@
+package qe;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Records the latency of every REST call made through a client it is registered on, keyed by method and templated
+// path (GET /v1/groups/{g}/encodings/{encodingId}). At JVM exit the histograms are written to
+// <latency.dir>/rest-latency.hlog (one tagged interval histogram per endpoint) with a percentile summary next to it.
+// Calls in the suite are issued back to back, so to correct for coordinated omission set
+// -Dlatency.expectedIntervalMicros to the interval the calls are meant to be issued at.
+public class LatencyRecordingFilter implements ClientRequestFilter, ClientResponseFilter {
+    private static final String START_PROPERTY = LatencyRecordingFilter.class.getName() + ".start";
+    private static final Map<String, Recorder> RECORDERS = new ConcurrentHashMap<>();
+    private static final long EXPECTED_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(Long.getLong("latency.expectedIntervalMicros", 0L));
+    private static final long START_TIME_MILLIS = System.currentTimeMillis();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!RECORDERS.isEmpty()) {
+                dump(new File(System.getProperty("latency.dir", "latency")));
+            }
+        }));
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (start == null) {
+            return;
+        }
+        long latency = System.nanoTime() - (Long) start;
+        String key = requestContext.getMethod() + " " + template(requestContext.getUri().getPath());
+        Recorder recorder = RECORDERS.computeIfAbsent(key, k -> new Recorder(3));
+        if (EXPECTED_INTERVAL_NANOS > 0) {
+            recorder.recordValueWithExpectedInterval(latency, EXPECTED_INTERVAL_NANOS);
+        } else {
+            recorder.recordValue(latency);
+        }
+    }
+
+    // Replaces group names, ids, types and versions with placeholders so calls to the same endpoint share a histogram.
+    static String template(String path) {
+        StringBuilder sb = new StringBuilder();
+        String previous = "";
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            String templated;
+            switch (previous) {
+                case "groups":
+                    templated = "{g}";
+                    break;
+                case "scopes":
+                    templated = "{scope}";
+                    break;
+                case "format":
+                    templated = "{serializationFormat}";
+                    break;
+                case "type":
+                    templated = "{type}";
+                    break;
+                case "schema":
+                    templated = "{schemaId}";
+                    break;
+                case "encodings":
+                    templated = "{encodingId}";
+                    break;
+                case "fingerprint":
+                    templated = "{fingerprint}";
+                    break;
+                case "versions":
+                    templated = isNumber(segment) ? "{version}" : segment;
+                    break;
+                default:
+                    templated = isNumber(segment) ? "{n}" : segment;
+                    break;
+            }
+            sb.append('/').append(templated);
+            previous = templated;
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    private static boolean isNumber(String segment) {
+        return segment.chars().allMatch(Character::isDigit);
+    }
+
+    // Drains everything recorded so far into an HDR log and a percentile summary in the given directory.
+    public static synchronized Map<String, Histogram> dump(File directory) {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        RECORDERS.forEach((key, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            histogram.setTag(key.replace(' ', '_'));
+            histogram.setStartTimeStamp(START_TIME_MILLIS);
+            histogram.setEndTimeStamp(System.currentTimeMillis());
+            histograms.put(key, histogram);
+        });
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Unable to create latency directory " + directory);
+            return histograms;
+        }
+        try (PrintStream log = new PrintStream(new File(directory, "rest-latency.hlog"));
+             PrintStream summary = new PrintStream(new File(directory, "rest-latency-summary.txt"))) {
+            HistogramLogWriter writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(START_TIME_MILLIS);
+            writer.setBaseTime(START_TIME_MILLIS);
+            writer.outputLegend();
+            histograms.values().forEach(writer::outputIntervalHistogram);
+            printSummary(histograms, summary);
+            printSummary(histograms, System.out);
+        } catch (FileNotFoundException e) {
+            System.err.println("Unable to write latency logs: " + e);
+        }
+        return histograms;
+    }
+
+    private static void printSummary(Map<String, Histogram> histograms, PrintStream out) {
+        out.println(String.format("%-70s %7s %9s %9s %9s %9s %9s", "endpoint", "count", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        histograms.forEach((key, histogram) -> out.println(String.format("%-70s %7d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                key, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6)));
+    }
+}
@@ -0,0 +1,62 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.data.CodecType;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.IOException;
+import java.util.Map;
+
+// LZ4 block codec. Register it like the Codecs in CompressionIOTests: SerializerConfig.encoder(new Lz4Codec()) with
+// registerCodec(true) on the writer and .decoder(Lz4Codec.NAME, new Lz4Codec()) on the reader.
+public class Lz4Codec extends BlockCodec {
+    public static final String NAME = "application/x-lz4";
+    public static final CodecType CODEC_TYPE = new CodecType(NAME);
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor = FACTORY.safeDecompressor();
+
+    public Lz4Codec() {
+        this(false);
+    }
+
+    // high compression trades encode CPU for ratio; decode speed is the same
+    public Lz4Codec(boolean highCompression) {
+        this.compressor = highCompression ? FACTORY.highCompressor() : FACTORY.fastCompressor();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CodecType getCodecType() {
+        return CODEC_TYPE;
+    }
+
+    @Override
+    int compress(byte[] src, int srcOffset, int length, byte[] dst) {
+        return compressor.compress(src, srcOffset, length, dst, 0, dst.length);
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+        return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    void decompress(byte[] src, int srcOffset, int length, byte[] dst, Map<String, String> properties) throws IOException {
+        try {
+            int decompressed = decompressor.decompress(src, srcOffset, length, dst, 0, dst.length);
+            if (decompressed != dst.length) {
+                throw new IOException(getName() + ": expected " + dst.length + " bytes but decompressed " + decompressed);
+            }
+        } catch (LZ4Exception e) {
+            throw new IOException(getName() + ": corrupt block", e);
+        }
+    }
+}
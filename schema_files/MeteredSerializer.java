@@ -0,0 +1,60 @@
+package qe;
+
+import io.pravega.client.stream.Serializer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Wraps a Pravega serializer and records bytes and per-call latency (ns) in each direction. Safe to share
+// between writer/reader threads.
+public class MeteredSerializer<T> implements Serializer<T> {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Serializer<T> serializer;
+    private final Histogram serializeLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Histogram deserializeLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder serializedBytes = new LongAdder();
+    private final LongAdder deserializedBytes = new LongAdder();
+
+    public MeteredSerializer(Serializer<T> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public ByteBuffer serialize(T value) {
+        long start = System.nanoTime();
+        ByteBuffer serialized = serializer.serialize(value);
+        serializeLatency.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        serializedBytes.add(serialized.remaining());
+        return serialized;
+    }
+
+    @Override
+    public T deserialize(ByteBuffer serializedValue) {
+        int size = serializedValue.remaining();
+        long start = System.nanoTime();
+        T value = serializer.deserialize(serializedValue);
+        deserializeLatency.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        deserializedBytes.add(size);
+        return value;
+    }
+
+    public Histogram getSerializeLatency() {
+        return serializeLatency;
+    }
+
+    public Histogram getDeserializeLatency() {
+        return deserializeLatency;
+    }
+
+    public long getSerializedBytes() {
+        return serializedBytes.sum();
+    }
+
+    public long getDeserializedBytes() {
+        return deserializedBytes.sum();
+    }
+}
@@ -0,0 +1,264 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.HdrHistogram.Histogram;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+// Scaling curve for allowMultipleTypes groups: for every (types, versions per type) point a group is filled through
+// the batch endpoint, then each operation is timed on randomly chosen types. One CSV row per point and operation;
+// `growth` is the slope of log(p50) over log(types) from the previous point, so about 0 means flat, 1 linear in
+// the number of types and anything clearly above 1 super-linear. Run main() with -Dscaling.* properties.
+// The client must not answer from RestClients' ResponseCache: getSchemas carries an ETag, and a 304 served from the
+// cache never makes the registry build the list. main() uses RestClients.uncached(), and measure() fails a point
+// that was answered from the shared cache.
+public class MultiTypeScalingBenchmark {
+    public enum Operation { addSchema, getSchemas, getSchemaVersions, history, getSchemaFromVersionNumber }
+
+    private static final String NAMESPACE = "io.pravega.schemaregistry.test.integrationtest.generated";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String schemaRegistryURI;
+    private final Client client;
+    private final SchemaRegistryRestClient restClient;
+    private final String groupPrefix = "scalingGrp" + System.currentTimeMillis() + "-";
+    private int samples = 200;
+    // getSchemas returns every type, so it gets fewer samples
+    private int listingSamples = 20;
+    private int batchSize = 1000;
+    private final Random random = new Random(42);
+
+    public MultiTypeScalingBenchmark(String schemaRegistryURI, Client client) {
+        this.schemaRegistryURI = schemaRegistryURI;
+        this.client = client;
+        this.restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+    }
+
+    public MultiTypeScalingBenchmark samples(int samples, int listingSamples) {
+        this.samples = samples;
+        this.listingSamples = listingSamples;
+        return this;
+    }
+
+    public MultiTypeScalingBenchmark batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public List<Point> run(int[] typeCounts, int[] versionsPerType, PrintStream csv) {
+        List<Point> points = new ArrayList<>();
+        csv.println(Point.CSV_HEADER);
+        for (int versions : versionsPerType) {
+            Map<Operation, Point> previous = new EnumMap<>(Operation.class);
+            for (int types : typeCounts) {
+                String groupName = groupPrefix + types + "x" + versions;
+                createGroup(groupName);
+                try {
+                    long populateNanos = populate(groupName, types, versions);
+                    for (Operation operation : Operation.values()) {
+                        Point point = measure(groupName, operation, types, versions, populateNanos, previous.get(operation));
+                        previous.put(operation, point);
+                        points.add(point);
+                        csv.println(point.toCsv());
+                    }
+                    csv.flush();
+                } finally {
+                    client.target(schemaRegistryURI + "/v1/groups/" + groupName).request().delete().close();
+                }
+            }
+        }
+        return points;
+    }
+
+    private void createGroup(String groupName) {
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new io.pravega.schemaregistry.contract.generated.rest.model.SerializationFormat()
+                        .serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()))
+                .allowMultipleTypes(true);
+        createGroupRequest.setGroupProperties(mygroup);
+        Response response = client.target(schemaRegistryURI + "/v1/groups").request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(createGroupRequest));
+        try {
+            if (response.getStatus() != Response.Status.CREATED.getStatusCode()) {
+                throw new IllegalStateException("createGroup failed with status " + response.getStatus());
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    // version by version, so each batch evolves types whose previous version is already registered
+    private long populate(String groupName, int types, int versions) {
+        long start = System.nanoTime();
+        for (int version = 0; version < versions; version++) {
+            List<SchemaInfo> batch = new ArrayList<>(batchSize);
+            for (int type = 0; type < types; type++) {
+                batch.add(schemaInfo(type, version));
+                if (batch.size() == batchSize || type == types - 1) {
+                    restClient.addSchemas(groupName, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Point measure(String groupName, Operation operation, int types, int versions, long populateNanos, Point previous) {
+        Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long cached = servedFromCache();
+        int count = operation == Operation.getSchemas ? listingSamples : samples;
+        // untimed requests first, so the first point of a curve is not the one paying for class loading and JIT
+        int warmup = Math.max(1, count / 10);
+        // sample i to its request; addSchema takes the types in turn, each sample a version past the populated ones
+        IntFunction<Response> request;
+        switch (operation) {
+            case addSchema:
+                request = i -> client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas")
+                        .request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(schemaInfo(i % types, versions + i / types)));
+                break;
+            case getSchemas:
+                request = i -> client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas")
+                        .request(MediaType.APPLICATION_JSON_TYPE).get();
+                break;
+            case getSchemaVersions:
+                request = i -> client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas/versions")
+                        .queryParam("type", typeName(random.nextInt(types))).request(MediaType.APPLICATION_JSON_TYPE).get();
+                break;
+            case history:
+                // a page from anywhere in the history, which holds types * versions records
+                request = i -> client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/history")
+                        .queryParam("limit", 100).queryParam("continuationToken", random.nextInt(types * versions))
+                        .request(MediaType.APPLICATION_JSON_TYPE).get();
+                break;
+            case getSchemaFromVersionNumber:
+                request = i -> client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas/format/Avro/type/"
+                        + typeName(random.nextInt(types)) + "/versions/" + random.nextInt(versions))
+                        .request(MediaType.APPLICATION_JSON_TYPE).get();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        for (int i = 0; i < warmup + count; i++) {
+            long start = System.nanoTime();
+            Response response = request.apply(i);
+            try {
+                response.readEntity(String.class);
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    throw new IllegalStateException(operation + " failed with status " + response.getStatus());
+                }
+            } finally {
+                response.close();
+            }
+            if (i >= warmup) {
+                histogram.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+            }
+        }
+        if (servedFromCache() != cached) {
+            throw new IllegalStateException(operation + " was answered from the response cache; use RestClients.uncached()");
+        }
+        return new Point(operation, types, versions, populateNanos, histogram, previous);
+    }
+
+    private static long servedFromCache() {
+        return RestClients.responseCache().getHits() + RestClients.responseCache().getRevalidated();
+    }
+
+    private static String typeName(int type) {
+        return NAMESPACE + ".T" + type;
+    }
+
+    // version v of type t: field a and v optional fields, each version backward compatible with the one before
+    private static SchemaInfo schemaInfo(int type, int version) {
+        StringBuilder schemaData = new StringBuilder("{\"namespace\":\"").append(NAMESPACE)
+                .append("\",\"type\":\"record\",\"name\":\"T").append(type)
+                .append("\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}");
+        for (int f = 0; f < version; f++) {
+            schemaData.append(",{\"name\":\"f").append(f).append("\",\"type\":\"string\",\"default\":\"x\"}");
+        }
+        schemaData.append("]}");
+        return new SchemaInfo()
+                .type(typeName(type))
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.toString().getBytes())
+                .properties(Collections.emptyMap());
+    }
+
+    public static class Point {
+        static final String CSV_HEADER = "operation,types,versionsPerType,populateSeconds,count,p50Ms,p90Ms,p99Ms,maxMs,growth";
+        private final Operation operation;
+        private final int types;
+        private final int versions;
+        private final long populateNanos;
+        private final Histogram latencies;
+        private final double growth;
+
+        private Point(Operation operation, int types, int versions, long populateNanos, Histogram latencies, Point previous) {
+            this.operation = operation;
+            this.types = types;
+            this.versions = versions;
+            this.populateNanos = populateNanos;
+            this.latencies = latencies;
+            this.growth = previous == null || previous.latencies.getValueAtPercentile(50) == 0 ? Double.NaN
+                    : Math.log((double) latencies.getValueAtPercentile(50) / previous.latencies.getValueAtPercentile(50))
+                    / Math.log((double) types / previous.types);
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public int getTypes() {
+            return types;
+        }
+
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        // NaN for the first point of a curve
+        public double getGrowth() {
+            return growth;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%.2f,%d,%.3f,%.3f,%.3f,%.3f,%s", operation, types, versions,
+                    populateNanos / 1e9, latencies.getTotalCount(), latencies.getValueAtPercentile(50) / 1e6,
+                    latencies.getValueAtPercentile(90) / 1e6, latencies.getValueAtPercentile(99) / 1e6,
+                    latencies.getMaxValue() / 1e6, Double.isNaN(growth) ? "" : String.format(Locale.ROOT, "%.2f", growth));
+        }
+    }
+
+    private static int[] ints(String property, String defaults) {
+        return Arrays.stream(System.getProperty(property, defaults).split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Client client = RestClients.uncached();
+        MultiTypeScalingBenchmark benchmark = new MultiTypeScalingBenchmark(
+                InMemorySchemaRegistry.resolveUri(InMemorySchemaRegistry.EMBEDDED), client)
+                .samples(Integer.getInteger("scaling.samples", 200), Integer.getInteger("scaling.listingSamples", 20))
+                .batchSize(Integer.getInteger("scaling.batchSize", 1000));
+        String csvFile = System.getProperty("scaling.csv");
+        PrintStream csv = csvFile == null ? System.out : new PrintStream(csvFile);
+        try {
+            benchmark.run(ints("scaling.types", "10,100,1000,10000,100000"), ints("scaling.versions", "1,5"), csv);
+        } finally {
+            if (csv != System.out) {
+                csv.close();
+            }
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.ws.rs.client.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load driver for the registry REST API. Requests are issued on a fixed schedule regardless of how
+// fast earlier ones complete, and latency is measured from the scheduled start, so queueing delay is not hidden
+// (no coordinated omission). Run main() with -Dload.* properties or use it from a test.
+public class RegistryLoadGenerator {
+    public enum Operation { addSchema, getSchemas, findSchemaVersion, getEncodingId }
+
+    private static final String SCHEMA_TYPE = "io.pravega.schemaregistry.test.integrationtest.generated.Type1";
+    private static final String BASE_SCHEMA = "{\"namespace\":\"io.pravega.schemaregistry.test.integrationtest.generated\",\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}$EXTRA]}";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String schemaRegistryURI;
+    private final Client client;
+    private final String groupPrefix = "loadGrp" + System.currentTimeMillis() + "-";
+    private final AtomicInteger fieldCounter = new AtomicInteger();
+    private int numberOfGroups = 100;
+    private int ratePerSecond = 200;
+    private int workers = 16;
+    private Duration duration = Duration.ofSeconds(30);
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    public RegistryLoadGenerator(String schemaRegistryURI, Client client) {
+        this.schemaRegistryURI = schemaRegistryURI;
+        this.client = client;
+        mix.put(Operation.addSchema, 1);
+        mix.put(Operation.getSchemas, 4);
+        mix.put(Operation.findSchemaVersion, 3);
+        mix.put(Operation.getEncodingId, 2);
+    }
+
+    public RegistryLoadGenerator groups(int numberOfGroups) {
+        this.numberOfGroups = numberOfGroups;
+        return this;
+    }
+
+    public RegistryLoadGenerator ratePerSecond(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        return this;
+    }
+
+    public RegistryLoadGenerator workers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    public RegistryLoadGenerator duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    // relative weight of each operation, e.g. addSchema=1,getSchemas=4 gives a 1:4 write/read ratio
+    public RegistryLoadGenerator mix(Operation operation, int weight) {
+        mix.put(operation, weight);
+        return this;
+    }
+
+    public List<String> createGroups() {
+        List<String> groupNames = new ArrayList<>(numberOfGroups);
+        for (int i = 0; i < numberOfGroups; i++) {
+            String groupName = groupPrefix + i;
+            Response response = createGroup(groupName);
+            checkStatus("createGroup", response, Response.Status.CREATED);
+            response = createSchema(groupName, schemaData(""));
+            checkStatus("createSchema", response, Response.Status.CREATED);
+            groupNames.add(groupName);
+        }
+        return groupNames;
+    }
+
+    public void deleteGroups(List<String> groupNames) {
+        for (String groupName : groupNames) {
+            client.target(schemaRegistryURI + "/v1/groups/" + groupName).request().delete().close();
+        }
+    }
+
+    public LoadReport run(List<String> groupNames) throws InterruptedException {
+        LoadReport report = new LoadReport(mix.keySet());
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Operation[] schedule = weightedSchedule();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long totalRequests = duration.toNanos() / intervalNanos;
+        Random random = new Random();
+        long start = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            String groupName = groupNames.get(random.nextInt(groupNames.size()));
+            executor.execute(() -> {
+                boolean success;
+                try {
+                    success = execute(operation, groupName);
+                } catch (RuntimeException e) {
+                    success = false;
+                }
+                report.record(operation, System.nanoTime() - intendedStart, success);
+            });
+        }
+        executor.shutdown();
+        // a report while requests are still being recorded into it would undercount them
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Requests still running a minute after the last was issued");
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private boolean execute(Operation operation, String groupName) {
+        Response response;
+        switch (operation) {
+            case addSchema:
+                String extra = ",{\"name\":\"f" + fieldCounter.getAndIncrement() + "\",\"type\":\"string\",\"default\":\"x\"}";
+                response = createSchema(groupName, schemaData(extra));
+                break;
+            case getSchemas:
+                response = client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas").request().get();
+                break;
+            case findSchemaVersion:
+                response = client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas/versions/find")
+                        .request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(schemaInfo(schemaData(""))));
+                break;
+            case getEncodingId:
+                GetEncodingIdRequest getEncodingIdRequest = new GetEncodingIdRequest()
+                        .versionInfo(new VersionInfo().type(SCHEMA_TYPE).version(0).id(0).serializationFormat("Avro"))
+                        .codecType("");
+                response = client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/encodings")
+                        .request(MediaType.APPLICATION_JSON_TYPE).put(Entity.json(getEncodingIdRequest));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        try {
+            return response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL;
+        } finally {
+            response.close();
+        }
+    }
+
+    private Operation[] weightedSchedule() {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix is empty");
+        }
+        return schedule.toArray(new Operation[0]);
+    }
+
+    private Response createGroup(String groupName) {
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new io.pravega.schemaregistry.contract.generated.rest.model.SerializationFormat()
+                        .serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()))
+                .allowMultipleTypes(false);
+        createGroupRequest.setGroupProperties(mygroup);
+        WebTarget webTarget = client.target(schemaRegistryURI + "/v1/groups");
+        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
+        return builder.post(Entity.json(createGroupRequest));
+    }
+
+    private Response createSchema(String groupName, String schemaData) {
+        WebTarget webTarget = client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas");
+        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
+        return builder.post(Entity.json(schemaInfo(schemaData)));
+    }
+
+    private static SchemaInfo schemaInfo(String schemaData) {
+        return new SchemaInfo()
+                .type(SCHEMA_TYPE)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.getBytes())
+                .properties(Collections.emptyMap());
+    }
+
+    private static String schemaData(String extraFields) {
+        return BASE_SCHEMA.replace("$EXTRA", extraFields);
+    }
+
+    private static void checkStatus(String operation, Response response, Response.Status expected) {
+        try {
+            if (response.getStatus() != expected.getStatusCode()) {
+                throw new IllegalStateException(operation + " failed with status " + response.getStatus());
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    public static class LoadReport {
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        private volatile long elapsedNanos;
+
+        private LoadReport(Set<Operation> operations) {
+            for (Operation operation : operations) {
+                latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+                errors.put(operation, new AtomicLong());
+            }
+        }
+
+        private void record(Operation operation, long latencyNanos, boolean success) {
+            latencies.get(operation).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            if (!success) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+
+        public Histogram getLatencies(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        public long getErrors(Operation operation) {
+            return errors.get(operation).get();
+        }
+
+        public long getTotalRequests() {
+            return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.println(String.format("%d requests in %.1f s (%.1f req/s)", getTotalRequests(), seconds, getTotalRequests() / seconds));
+            out.println(String.format("%-18s %8s %7s %10s %10s %10s %10s %10s", "endpoint", "count", "errors",
+                    "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+            latencies.forEach((operation, histogram) -> out.println(String.format("%-18s %8d %7d %10.2f %10.2f %10.2f %10.2f %10.2f",
+                    operation, histogram.getTotalCount(), errors.get(operation).get(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getMaxValue() / 1e6)));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // uncached, so getSchemas samples are full responses and not 304 revalidations
+        Client client = RestClients.uncached();
+        RegistryLoadGenerator generator = new RegistryLoadGenerator(InMemorySchemaRegistry.resolveUri(InMemorySchemaRegistry.EMBEDDED), client)
+                .groups(Integer.getInteger("load.groups", 1000))
+                .ratePerSecond(Integer.getInteger("load.rate", 1000))
+                .workers(Integer.getInteger("load.workers", 64))
+                .duration(Duration.ofSeconds(Integer.getInteger("load.durationSeconds", 60)));
+        for (Operation operation : Operation.values()) {
+            Integer weight = Integer.getInteger("load.mix." + operation);
+            if (weight != null) {
+                generator.mix(operation, weight);
+            }
+        }
+        List<String> groupNames = generator.createGroups();
+        try {
+            generator.run(groupNames).print(System.out);
+            System.out.println("connection pool " + RestClients.poolStats());
+        } finally {
+            generator.deleteGroups(groupNames);
+            client.close();
+        }
+    }
+}
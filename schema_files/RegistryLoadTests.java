@@ -0,0 +1,50 @@
+package qe;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RegistryLoadTests {
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.92:9092");
+    private static Client client;
+    private static RegistryLoadGenerator generator;
+    private static List<String> groupNames;
+
+    @BeforeClass
+    public static void setUp(){
+        // the latencies are of full responses, not of 304s from the shared client's ResponseCache
+        client = RestClients.uncached();
+        generator = new RegistryLoadGenerator(schemaRegistryURI, client)
+                .groups(20)
+                .ratePerSecond(100)
+                .workers(8)
+                .duration(Duration.ofSeconds(5));
+        groupNames = generator.createGroups();
+    }
+
+    @AfterClass
+    public static void tearDown(){
+        generator.deleteGroups(groupNames);
+        client.close();
+    }
+
+    @Test
+    public void verifySustainedMixedLoad() throws InterruptedException {
+        RegistryLoadGenerator.LoadReport report = generator.run(groupNames);
+        report.print(System.out);
+        assertEquals(500, report.getTotalRequests());
+        for (RegistryLoadGenerator.Operation operation : RegistryLoadGenerator.Operation.values()) {
+            assertTrue("No requests issued for " + operation, report.getLatencies(operation).getTotalCount() > 0);
+            assertEquals("Errors for " + operation, 0, report.getErrors(operation));
+        }
+        // every response hands its connection back to the pool
+        assertEquals("Leased connections", 0, RestClients.poolStats().getLeased());
+    }
+}
@@ -0,0 +1,162 @@
+package qe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps the body of every GET response that carries an ETag, keyed by URI and Accept header. The next GET of the
+// same resource goes out with If-None-Match, and a 304 is handed to the caller as a 200 with the kept body, so a
+// reader polling group state only transfers headers while nothing changes. Bodies with a Cache-Control max-age
+// (encodings) are served without a request until it runs out. DELETE of a group drops its entries, since a group
+// recreated under the same name reuses encoding ids. Requests that set their own If-None-Match are left alone.
+public class ResponseCache implements ClientRequestFilter, ClientResponseFilter {
+    private static final String KEY_PROPERTY = ResponseCache.class.getName() + ".key";
+    private static final String ENTRY_PROPERTY = ResponseCache.class.getName() + ".entry";
+    private static final String SERVED_PROPERTY = ResponseCache.class.getName() + ".served";
+
+    private final Cache<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+
+    // maxBytes bounds the kept bodies (and keys), least recently used first out
+    public ResponseCache(long maxBytes) {
+        entries = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.body.length)
+                .build();
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        if (requestContext.getMethod().equals("DELETE")) {
+            invalidateGroup(requestContext.getUri());
+            return;
+        }
+        if (!requestContext.getMethod().equals("GET") || requestContext.getHeaders().containsKey("If-None-Match")) {
+            return;
+        }
+        String key = requestContext.getUri() + "\n" + requestContext.getHeaderString("Accept");
+        requestContext.setProperty(KEY_PROPERTY, key);
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() > 0) {
+            hits.increment();
+            requestContext.setProperty(SERVED_PROPERTY, Boolean.TRUE);
+            requestContext.abortWith(Response.ok(entry.body, entry.contentType).header("ETag", entry.etag).build());
+            return;
+        }
+        requestContext.setProperty(ENTRY_PROPERTY, entry);
+        requestContext.getHeaders().putSingle("If-None-Match", entry.etag);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        String key = (String) requestContext.getProperty(KEY_PROPERTY);
+        if (key == null || requestContext.getProperty(SERVED_PROPERTY) != null) {
+            return;
+        }
+        Entry sent = (Entry) requestContext.getProperty(ENTRY_PROPERTY);
+        if (responseContext.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && sent != null) {
+            revalidated.increment();
+            responseContext.setStatus(Response.Status.OK.getStatusCode());
+            responseContext.getHeaders().putSingle("Content-Type", sent.contentType.toString());
+            responseContext.setEntityStream(new ByteArrayInputStream(sent.body));
+            return;
+        }
+        String etag = responseContext.getHeaderString("ETag");
+        MediaType mediaType = responseContext.getMediaType();
+        InputStream entityStream = responseContext.getEntityStream();
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode() || etag == null || mediaType == null
+                || entityStream == null || mediaType.isCompatible(MediaType.valueOf(InMemorySchemaRegistry.NDJSON))) {
+            return;
+        }
+        byte[] body;
+        try {
+            body = entityStream.readAllBytes();
+        } finally {
+            entityStream.close();
+        }
+        responseContext.setEntityStream(new ByteArrayInputStream(body));
+        entries.put(key, new Entry(etag, mediaType, body, System.nanoTime() + maxAgeNanos(responseContext.getHeaderString("Cache-Control"))));
+        stored.increment();
+    }
+
+    private void invalidateGroup(URI uri) {
+        String[] segments = uri.getPath().split("/");
+        // "", "v1", "groups", g
+        if (segments.length != 4 || !segments[1].equals("v1") || !segments[2].equals("groups")) {
+            return;
+        }
+        String prefix = uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath();
+        entries.asMap().keySet().removeIf(k -> k.startsWith(prefix + "/") || k.startsWith(prefix + "\n") || k.startsWith(prefix + "?"));
+    }
+
+    private static long maxAgeNanos(String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.trim();
+            if (directive.startsWith("max-age=")) {
+                try {
+                    return TimeUnit.SECONDS.toNanos(Long.parseLong(directive.substring("max-age=".length())));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    // GETs answered from the cache without a request
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // GETs answered 304 and served from the cache
+    public long getRevalidated() {
+        return revalidated.sum();
+    }
+
+    // full bodies kept
+    public long getStored() {
+        return stored.sum();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final String etag;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final long expiresAtNanos;
+
+        private Entry(String etag, MediaType contentType, byte[] body, long expiresAtNanos) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package qe;
+
+import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// One Jersey client for all the suites, on the Apache connector with a pooled keep-alive connection manager, so
+// tests and load runs don't pay for TCP connects and provider setup on every call.
+// -Drest.maxConnectionsPerRoute (default 64) and -Drest.maxConnections (default 256) size the pool;
+// async()/rx() calls run on -Drest.asyncThreads (default maxConnectionsPerRoute) threads.
+// GETs go through a ResponseCache of -Drest.responseCacheBytes (default 64 MB, 0 turns it off).
+public final class RestClients {
+    private static final int MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger("rest.maxConnectionsPerRoute", 64);
+    private static final int MAX_CONNECTIONS = Integer.getInteger("rest.maxConnections", 256);
+    private static final int ASYNC_THREADS = Integer.getInteger("rest.asyncThreads", MAX_CONNECTIONS_PER_ROUTE);
+    private static final long RESPONSE_CACHE_BYTES = Long.getLong("rest.responseCacheBytes", 64L * 1024 * 1024);
+    private static final ResponseCache RESPONSE_CACHE = new ResponseCache(RESPONSE_CACHE_BYTES);
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = new PoolingHttpClientConnectionManager(60, TimeUnit.SECONDS);
+    private static Client shared;
+
+    static {
+        CONNECTION_MANAGER.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        CONNECTION_MANAGER.setMaxTotal(MAX_CONNECTIONS);
+        CONNECTION_MANAGER.setValidateAfterInactivity(2000);
+    }
+
+    private RestClients() {
+    }
+
+    // The shared client. Callers must not close it.
+    public static synchronized Client shared() {
+        if (shared == null) {
+            shared = ClientBuilder.newClient(config());
+        }
+        return shared;
+    }
+
+    // A client on the same connection pool that never answers from the ResponseCache, for measurements where a 304
+    // would hide the cost of building the response. Close it when done; the pool stays open.
+    public static Client uncached() {
+        return ClientBuilder.newClient(config(false));
+    }
+
+    static ClientConfig config() {
+        return config(RESPONSE_CACHE_BYTES > 0);
+    }
+
+    private static ClientConfig config(boolean cached) {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.connectorProvider(new ApacheConnectorProvider());
+        clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, CONNECTION_MANAGER);
+        clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+        clientConfig.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED);
+        clientConfig.property(ClientProperties.ASYNC_THREADPOOL_SIZE, ASYNC_THREADS);
+        clientConfig.register(JacksonJsonProvider.class);
+        clientConfig.register(BinaryJsonProvider.class);
+        clientConfig.register(LatencyRecordingFilter.class);
+        clientConfig.register(BufferingResponseFilter.class);
+        if (cached) {
+            clientConfig.register(RESPONSE_CACHE);
+        }
+        return clientConfig;
+    }
+
+    public static ResponseCache responseCache() {
+        return RESPONSE_CACHE;
+    }
+
+    // leased = connections in use, pending = callers waiting for one, available = idle keep-alive connections
+    public static PoolStats poolStats() {
+        return CONNECTION_MANAGER.getTotalStats();
+    }
+
+    public static void closeIdleConnections() {
+        CONNECTION_MANAGER.closeExpiredConnections();
+        CONNECTION_MANAGER.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+    }
+
+    // Most tests only look at the status and never read or close the response, which with a pooled connector
+    // would keep the connection leased forever. Registry responses are small, so read them up front and hand
+    // the connection straight back to the pool. NDJSON listings are left streaming; their readers close them.
+    static class BufferingResponseFilter implements ClientResponseFilter {
+        // compared ignoring parameters such as ;charset=
+        private static final MediaType NDJSON_TYPE = MediaType.valueOf(InMemorySchemaRegistry.NDJSON);
+
+        @Override
+        public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+            InputStream entityStream = responseContext.getEntityStream();
+            if (entityStream == null || NDJSON_TYPE.isCompatible(responseContext.getMediaType())) {
+                return;
+            }
+            byte[] entity;
+            try {
+                entity = entityStream.readAllBytes();
+            } finally {
+                entityStream.close();
+            }
+            responseContext.setEntityStream(new ByteArrayInputStream(entity));
+        }
+    }
+}
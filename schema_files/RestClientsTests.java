@@ -0,0 +1,178 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.apache.http.pool.PoolStats;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static javax.ws.rs.core.Response.Status.*;
+import static org.junit.Assert.*;
+
+public class RestClientsTests {
+    private static InMemorySchemaRegistry registry;
+    private static String schemaRegistryURI;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        registry = InMemorySchemaRegistry.start();
+        schemaRegistryURI = registry.getUri();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void verifySharedClientReusesConnections() {
+        Client client = RestClients.shared();
+        assertSame(client, RestClients.shared());
+        PoolStats before = RestClients.poolStats();
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpMissing").toString();
+        for (int i = 0; i < 50; i++) {
+            // responses are deliberately left unread and unclosed, the way most suites use them
+            Response response = client.target(resourceURl).request().get();
+            assertEquals("Get group status", NOT_FOUND.getStatusCode(), response.getStatus());
+            response = client.target(resourceURl).request().delete();
+            assertEquals("Delete group status", NOT_FOUND.getStatusCode(), response.getStatus());
+        }
+        PoolStats after = RestClients.poolStats();
+        assertEquals("Leased connections", 0, after.getLeased());
+        assertTrue("Opened " + (after.getAvailable() - before.getAvailable()) + " connections",
+                after.getAvailable() - before.getAvailable() <= 1);
+    }
+
+    @Test
+    public void verifyNdjsonIsNotBuffered() throws IOException {
+        for (String contentType : new String[]{InMemorySchemaRegistry.NDJSON, InMemorySchemaRegistry.NDJSON + ";charset=UTF-8", "application/json"}) {
+            AtomicInteger buffered = new AtomicInteger();
+            ClientResponseContext response = (ClientResponseContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ClientResponseContext.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getEntityStream":
+                                return new ByteArrayInputStream(new byte[]{'{', '}'});
+                            case "getMediaType":
+                                return MediaType.valueOf(contentType);
+                            case "getHeaderString":
+                                return contentType;
+                            case "setEntityStream":
+                                buffered.incrementAndGet();
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+            new RestClients.BufferingResponseFilter().filter(null, response);
+            assertEquals(contentType, contentType.startsWith(InMemorySchemaRegistry.NDJSON) ? 0 : 1, buffered.get());
+        }
+    }
+
+    @Test
+    public void verifyResponseCacheRevalidatesWithEtags() {
+        Client client = RestClients.shared();
+        ResponseCache cache = RestClients.responseCache();
+        String groupURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpEtag").toString();
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest().groupName("grpEtag").groupProperties(new GroupProperties()
+                .serializationFormat(new SerializationFormat().serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()))
+                .allowMultipleTypes(false)
+                .properties(Collections.emptyMap()));
+        Response response = client.target(schemaRegistryURI + "/v1/groups").request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(createGroupRequest));
+        assertEquals("Create Group status", CREATED.getStatusCode(), response.getStatus());
+
+        response = client.target(groupURl).request().get();
+        assertEquals("Get group status", OK.getStatusCode(), response.getStatus());
+        String etag = response.getHeaderString("ETag");
+        assertNotNull(etag);
+        long revalidated = cache.getRevalidated();
+        response = client.target(groupURl).request().get();
+        assertEquals("Get group status", OK.getStatusCode(), response.getStatus());
+        assertEquals("Backward", response.readEntity(GroupProperties.class).getCompatibility().getPolicy().toString());
+        assertEquals(revalidated + 1, cache.getRevalidated());
+        // callers that send their own If-None-Match see the 304
+        response = client.target(groupURl).request().header("If-None-Match", etag).get();
+        assertEquals("Conditional get group status", NOT_MODIFIED.getStatusCode(), response.getStatus());
+
+        // a change bumps the generation, so the next GET is a full response
+        UpdateCompatibilityRequest updateCompatibilityRequest = new UpdateCompatibilityRequest()
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.forward()));
+        response = client.target(groupURl + "/compatibility").request(MediaType.APPLICATION_JSON_TYPE).put(Entity.json(updateCompatibilityRequest));
+        assertEquals("Update compatibility status", OK.getStatusCode(), response.getStatus());
+        response = client.target(groupURl).request().get();
+        assertNotEquals(etag, response.getHeaderString("ETag"));
+        assertEquals("Forward", response.readEntity(GroupProperties.class).getCompatibility().getPolicy().toString());
+        assertEquals(revalidated + 1, cache.getRevalidated());
+
+        // encodings are served from the cache without a request until the group is deleted
+        SchemaInfo schemaInfo = new SchemaInfo().type("Etag")
+                .serializationFormat(new SerializationFormat().serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .schemaData("{\"type\":\"record\",\"name\":\"Etag\",\"fields\":[]}".getBytes())
+                .properties(Collections.emptyMap());
+        VersionInfo versionInfo = new SchemaRegistryRestClient(client, schemaRegistryURI).addSchema("grpEtag", schemaInfo);
+        response = client.target(groupURl + "/encodings").request(MediaType.APPLICATION_JSON_TYPE)
+                .put(Entity.json(new GetEncodingIdRequest().versionInfo(versionInfo).codecType("")));
+        int encodingId = response.readEntity(EncodingId.class).getEncodingId();
+        long hits = cache.getHits();
+        for (int i = 0; i < 3; i++) {
+            response = client.target(groupURl + "/encodings/" + encodingId).request().get();
+            assertEquals("Get encoding status", OK.getStatusCode(), response.getStatus());
+            assertEquals(versionInfo, response.readEntity(EncodingInfo.class).getVersionInfo());
+        }
+        assertEquals(hits + 2, cache.getHits());
+        response = client.target(groupURl).request().delete();
+        assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
+        response = client.target(groupURl + "/encodings/" + encodingId).request().get();
+        assertEquals("Get encoding status", NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void verifyBinaryContentNegotiation() {
+        Client client = RestClients.shared();
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest().groupName("grpBinary").groupProperties(new GroupProperties()
+                .serializationFormat(new SerializationFormat().serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()))
+                .allowMultipleTypes(false)
+                .properties(Collections.emptyMap()));
+        Response response = client.target(schemaRegistryURI + "/v1/groups").request(BinaryJsonProvider.CBOR_TYPE)
+                .post(Entity.entity(createGroupRequest, BinaryJsonProvider.CBOR_TYPE));
+        assertEquals("Create Group status", CREATED.getStatusCode(), response.getStatus());
+
+        byte[] schemaData = ("{\"type\":\"record\",\"name\":\"Binary\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}").getBytes();
+        SchemaInfo schemaInfo = new SchemaInfo().type("Binary")
+                .serializationFormat(new SerializationFormat().serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .schemaData(schemaData)
+                .properties(Collections.emptyMap());
+        VersionInfo versionInfo = new SchemaRegistryRestClient(client, schemaRegistryURI, BinaryJsonProvider.SMILE_TYPE)
+                .addSchema("grpBinary", schemaInfo);
+        assertEquals(new Integer(0), versionInfo.getVersion());
+
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/grpBinary/schemas/schema/0").toString();
+        int[] sizes = new int[3];
+        MediaType[] mediaTypes = {MediaType.APPLICATION_JSON_TYPE, BinaryJsonProvider.CBOR_TYPE, BinaryJsonProvider.SMILE_TYPE};
+        for (int i = 0; i < mediaTypes.length; i++) {
+            response = client.target(resourceURl).request(mediaTypes[i]).get();
+            assertEquals("Get schema status", OK.getStatusCode(), response.getStatus());
+            assertEquals(mediaTypes[i], response.getMediaType());
+            sizes[i] = Integer.parseInt(response.getHeaderString("Content-Length"));
+            assertArrayEquals(schemaData, response.readEntity(SchemaInfo.class).getSchemaData());
+        }
+        // schemaData is Base64 text in JSON and raw bytes in CBOR and Smile
+        assertTrue(Arrays.toString(sizes), sizes[1] < sizes[0] && sizes[2] < sizes[0]);
+        response = client.target(schemaRegistryURI + "/v1/groups/grpBinary").request().delete();
+        assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+}
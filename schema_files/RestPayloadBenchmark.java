@@ -0,0 +1,119 @@
+package qe;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializes and deserializes a SchemaVersionsList (what GET /schemas/versions returns) as JSON, CBOR and Smile with
+// the mappers BinaryJsonProvider and InMemorySchemaRegistry use. Run main() for the average time per op,
+// gc.alloc.rate.norm and a table of payload sizes per format.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RestPayloadBenchmark {
+    private static final int VERSIONS = 20;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    // fields per schema, 10 is a typical event, 1000 a wide table
+    @Param({"10", "1000"})
+    public int fields;
+
+    private ObjectMapper mapper;
+    private SchemaVersionsList versions;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        versions = versions(fields);
+        serialized = mapper.writeValueAsBytes(versions);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(versions);
+    }
+
+    @Benchmark
+    public SchemaVersionsList deserialize() throws IOException {
+        return mapper.readValue(serialized, SchemaVersionsList.class);
+    }
+
+    static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "json":
+                return BinaryJsonProvider.mapper(new JsonFactory());
+            case "cbor":
+                return BinaryJsonProvider.mapper(new CBORFactory());
+            case "smile":
+                return BinaryJsonProvider.mapper(new SmileFactory());
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    // VERSIONS versions of one record type, version i adding optional field i
+    static SchemaVersionsList versions(int fields) {
+        List<SchemaWithVersion> result = new ArrayList<>();
+        for (int v = 0; v < VERSIONS; v++) {
+            SchemaBuilder.FieldAssembler<Schema> assembler = SchemaBuilder.record("Wide")
+                    .namespace("io.pravega.schemaregistry.test.integrationtest.generated").fields();
+            for (int f = 0; f < fields + v; f++) {
+                assembler = assembler.name("field" + f).doc("value of column " + f).type().optional().stringType();
+            }
+            String schema = assembler.endRecord().toString();
+            result.add(new SchemaWithVersion()
+                    .schemaInfo(new SchemaInfo()
+                            .type("Wide")
+                            .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                            .schemaData(schema.getBytes(StandardCharsets.UTF_8))
+                            .properties(Collections.emptyMap()))
+                    .versionInfo(new VersionInfo().type("Wide").serializationFormat("Avro").version(v).id(v)));
+        }
+        return new SchemaVersionsList().schemas(result);
+    }
+
+    static void printPayloadSizes() throws IOException {
+        System.out.println(String.format("%-6s %8s %14s %8s", "format", "fields", "payload(bytes)", "vs json"));
+        for (int fields : new int[]{10, 1000}) {
+            SchemaVersionsList versions = versions(fields);
+            int json = mapper("json").writeValueAsBytes(versions).length;
+            for (String format : new String[]{"json", "cbor", "smile"}) {
+                int size = mapper(format).writeValueAsBytes(versions).length;
+                System.out.println(String.format("%-6s %8d %14d %8.3f", format, fields, size, (double) size / json));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        printPayloadSizes();
+        Options options = new OptionsBuilder()
+                .include(RestPayloadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
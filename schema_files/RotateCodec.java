@@ -0,0 +1,103 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.data.CodecType;
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+// The "mycompression" codec used by CompressionIOTests: encode rotates the payload left by one byte, decode rotates
+// it back. Neither side allocates per event:
+//   encode - heap buffers are written straight from their backing array as two slices; direct buffers are streamed
+//            through a thread-local scratch array
+//   decode - rotates the remaining bytes in place and returns a slice over them, so the input buffer is modified;
+//            only a read-only input is copied into a new buffer
+// Both consume the input buffer (position == limit afterwards), like a relative get of every byte would.
+public class RotateCodec implements Codec {
+    public static final String NAME = "mycompression";
+    public static final CodecType CODEC_TYPE = new CodecType(NAME);
+    private static final int SCRATCH_SIZE = 8 * 1024;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CodecType getCodecType() {
+        return CODEC_TYPE;
+    }
+
+    @Override
+    public void encode(ByteBuffer data, OutputStream bos) throws IOException {
+        int length = data.remaining();
+        if (length == 0) {
+            return;
+        }
+        if (data.hasArray()) {
+            byte[] array = data.array();
+            int offset = data.arrayOffset() + data.position();
+            bos.write(array, offset + 1, length - 1);
+            bos.write(array[offset]);
+        } else {
+            byte first = data.get(data.position());
+            ByteBuffer rest = data.duplicate();
+            rest.position(rest.position() + 1);
+            byte[] scratch = SCRATCH.get();
+            while (rest.hasRemaining()) {
+                int chunk = Math.min(scratch.length, rest.remaining());
+                rest.get(scratch, 0, chunk);
+                bos.write(scratch, 0, chunk);
+            }
+            bos.write(first);
+        }
+        data.position(data.limit());
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer data, Map<String, String> properties) throws IOException {
+        int length = data.remaining();
+        if (data.isReadOnly()) {
+            ByteBuffer copy = ByteBuffer.allocate(length);
+            if (length > 0) {
+                copy.put(data.get(data.limit() - 1));
+                ByteBuffer head = data.duplicate();
+                head.limit(head.limit() - 1);
+                copy.put(head);
+                copy.flip();
+            }
+            data.position(data.limit());
+            return copy;
+        }
+        ByteBuffer result = data.slice();
+        data.position(data.limit());
+        if (length < 2) {
+            return result;
+        }
+        byte last = result.get(length - 1);
+        if (result.hasArray()) {
+            // arraycopy handles the overlapping ranges
+            int offset = result.arrayOffset();
+            System.arraycopy(result.array(), offset, result.array(), offset + 1, length - 1);
+        } else {
+            // shift [0, length - 1) up by one, last chunk first so nothing is overwritten before it has been read
+            byte[] scratch = SCRATCH.get();
+            ByteBuffer window = result.duplicate();
+            int end = length - 1;
+            while (end > 0) {
+                int chunk = Math.min(scratch.length, end);
+                int from = end - chunk;
+                window.position(from);
+                window.get(scratch, 0, chunk);
+                window.position(from + 1);
+                window.put(scratch, 0, chunk);
+                end = from;
+            }
+        }
+        result.put(0, last);
+        return result;
+    }
+}
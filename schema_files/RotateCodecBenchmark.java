@@ -0,0 +1,86 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Copying (legacy) vs zero-copy (RotateCodec) implementation of the "mycompression" codec on heap and direct
+// buffers at per-event payload sizes. Run main() and compare gc.alloc.rate.norm: the zero-copy codec should
+// allocate nothing per op apart from the decode of a read-only buffer.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RotateCodecBenchmark {
+    private static final Map<String, String> NO_PROPERTIES = Collections.emptyMap();
+
+    @Param({"legacy", "zeroCopy"})
+    public String implementation;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    // payload size in kb, as passed to generateBigString
+    @Param({"10", "100", "1024"})
+    public int sizeInKb;
+
+    private Codec codec;
+    private ByteBuffer raw;
+    private ByteBuffer encoded;
+    private ByteBuffer decodeInput;
+    private ByteArrayOutputStream sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = implementation.equals("legacy") ? CompressionIOTests.createLegacyCustomCodec() : new RotateCodec();
+        byte[] payload = CodecBenchmark.payload("random", sizeInKb * 1024);
+        raw = allocate(payload.length);
+        raw.put(payload).flip();
+        sink = new ByteArrayOutputStream(payload.length + 1024);
+        codec.encode(raw.duplicate(), sink);
+        encoded = allocate(sink.size());
+        encoded.put(sink.toByteArray()).flip();
+        decodeInput = allocate(encoded.remaining());
+    }
+
+    private ByteBuffer allocate(int size) {
+        return buffer.equals("direct") ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    @Benchmark
+    public void encode(Blackhole bh) throws IOException {
+        sink.reset();
+        codec.encode(raw.duplicate(), sink);
+        bh.consume(sink.size());
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) throws IOException {
+        // RotateCodec decodes in place, so every op starts from a fresh copy of the encoded bytes
+        decodeInput.clear();
+        decodeInput.put(encoded.duplicate()).flip();
+        bh.consume(codec.decode(decodeInput, NO_PROPERTIES));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RotateCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
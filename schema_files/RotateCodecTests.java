@@ -0,0 +1,80 @@
+package qe;
+
+import io.pravega.schemaregistry.serializer.shared.codec.Codec;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RotateCodecTests {
+    private final Codec codec = new RotateCodec();
+    private final Codec legacy = CompressionIOTests.createLegacyCustomCodec();
+
+    @Test
+    public void verifyEncodingMatchesLegacyCodec() throws IOException {
+        // 20 KB spans several scratch chunks on the direct path
+        byte[] payload = CodecBenchmark.payload("json", 20 * 1024 + 7);
+        byte[] expected = encode(legacy, ByteBuffer.wrap(payload));
+
+        assertArrayEquals(expected, encode(codec, ByteBuffer.wrap(payload)));
+        assertArrayEquals(expected, encode(codec, direct(payload)));
+        // heap buffer that does not start at offset 0 of its backing array
+        ByteBuffer sliced = ByteBuffer.wrap(("xx" + new String(payload) + "yy").getBytes(), 2, payload.length).slice();
+        assertArrayEquals(expected, encode(codec, sliced));
+    }
+
+    @Test
+    public void verifyDecodeRoundTrip() throws IOException {
+        byte[] payload = CodecBenchmark.payload("text", 20 * 1024 + 7);
+        byte[] encoded = encode(codec, ByteBuffer.wrap(payload));
+
+        assertArrayEquals(payload, decode(ByteBuffer.wrap(encoded.clone())));
+        assertArrayEquals(payload, decode(direct(encoded)));
+        assertArrayEquals(payload, decode(ByteBuffer.wrap(encoded.clone()).asReadOnlyBuffer()));
+        assertArrayEquals(payload, decode(ByteBuffer.wrap(encode(legacy, ByteBuffer.wrap(payload)))));
+    }
+
+    @Test
+    public void verifyInputIsConsumed() throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        encode(codec, data);
+        assertFalse(data.hasRemaining());
+
+        data = ByteBuffer.wrap(new byte[]{0, 0, 2, 3, 1});
+        data.position(2);
+        ByteBuffer decoded = codec.decode(data, Collections.emptyMap());
+        assertFalse(data.hasRemaining());
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), decoded);
+    }
+
+    @Test
+    public void verifyEmptyAndSingleBytePayloads() throws IOException {
+        assertEquals(0, encode(codec, ByteBuffer.allocate(0)).length);
+        assertEquals(0, decode(ByteBuffer.allocate(0)).length);
+        assertArrayEquals(new byte[]{9}, encode(codec, ByteBuffer.wrap(new byte[]{9})));
+        assertArrayEquals(new byte[]{9}, decode(ByteBuffer.wrap(new byte[]{9})));
+    }
+
+    private static byte[] encode(Codec codec, ByteBuffer data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(data, out);
+        return out.toByteArray();
+    }
+
+    private byte[] decode(ByteBuffer data) throws IOException {
+        ByteBuffer decoded = codec.decode(data, Collections.emptyMap());
+        byte[] bytes = new byte[decoded.remaining()];
+        decoded.get(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
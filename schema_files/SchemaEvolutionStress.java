@@ -0,0 +1,346 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Races addSchema from many threads on one group and type, the way concurrent CI pipelines register the same type.
+// Each thread registers its own compatible versions (a new field with a default), now and then an incompatible one
+// (field a retyped to int) and versions shared by every thread, which must resolve to one version. The report has
+// registration throughput, latency of accepted and rejected registrations, retries of server errors and every
+// violation found: versions and ids that are not dense, or not increasing in the order they were assigned.
+public class SchemaEvolutionStress {
+    private static final String SCHEMA_TYPE = "io.pravega.schemaregistry.test.integrationtest.generated.Type1";
+    private static final String BASE_SCHEMA = "{\"namespace\":\"io.pravega.schemaregistry.test.integrationtest.generated\",\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"$A\"}$EXTRA]}";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String schemaRegistryURI;
+    private final Client client;
+    private int threads = 16;
+    private int registrationsPerThread = 50;
+    private int incompatibleEvery = 5;
+    private int sharedEvery = 4;
+    private int sharedCandidates = 5;
+    private int maxRetries = 3;
+
+    public SchemaEvolutionStress(String schemaRegistryURI, Client client) {
+        this.schemaRegistryURI = schemaRegistryURI;
+        this.client = client;
+    }
+
+    public SchemaEvolutionStress threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public SchemaEvolutionStress registrationsPerThread(int registrationsPerThread) {
+        this.registrationsPerThread = registrationsPerThread;
+        return this;
+    }
+
+    // every n-th registration of a thread is incompatible, 0 for none
+    public SchemaEvolutionStress incompatibleEvery(int incompatibleEvery) {
+        this.incompatibleEvery = incompatibleEvery;
+        return this;
+    }
+
+    // every n-th registration of a thread is one of `candidates` versions all threads share, 0 for none
+    public SchemaEvolutionStress shared(int sharedEvery, int candidates) {
+        this.sharedEvery = sharedEvery;
+        this.sharedCandidates = candidates;
+        return this;
+    }
+
+    // attempts after a 5xx or a connection failure
+    public SchemaEvolutionStress maxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    // a single type group with the base version (a: string) as version 0
+    public void createGroup(String groupName, io.pravega.schemaregistry.contract.data.Compatibility compatibility) {
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new io.pravega.schemaregistry.contract.generated.rest.model.SerializationFormat()
+                        .serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(compatibility))
+                .allowMultipleTypes(false);
+        createGroupRequest.setGroupProperties(mygroup);
+        Response response = client.target(schemaRegistryURI + "/v1/groups").request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(createGroupRequest));
+        checkStatus("createGroup", response, Response.Status.CREATED);
+        response = createSchema(groupName, schemaData("string", ""));
+        checkStatus("createSchema", response, Response.Status.CREATED);
+    }
+
+    public void deleteGroup(String groupName) {
+        client.target(schemaRegistryURI + "/v1/groups/" + groupName).request().delete().close();
+    }
+
+    public StressReport run(String groupName, String policy) throws InterruptedException {
+        StressReport report = new StressReport(policy);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int lastOwnVersion = -1;
+                for (int i = 0; i < registrationsPerThread; i++) {
+                    boolean incompatible = incompatibleEvery > 0 && i % incompatibleEvery == incompatibleEvery - 1;
+                    boolean shared = !incompatible && sharedEvery > 0 && i % sharedEvery == sharedEvery - 1;
+                    String candidate = incompatible ? "t" + thread + "_bad" + i
+                            : shared ? "shared" + (i / sharedEvery) % sharedCandidates : "t" + thread + "_" + i;
+                    String extra = ",{\"name\":\"" + candidate + "\",\"type\":\"string\",\"default\":\"x\"}";
+                    VersionInfo versionInfo = register(report, groupName, schemaData(incompatible ? "int" : "string", extra), incompatible);
+                    if (versionInfo == null) {
+                        continue;
+                    }
+                    Integer previous = report.versions.putIfAbsent(candidate, versionInfo.getVersion());
+                    if (previous != null && !previous.equals(versionInfo.getVersion())) {
+                        report.violation(candidate + " registered as version " + previous + " and " + versionInfo.getVersion());
+                    }
+                    if (!versionInfo.getVersion().equals(versionInfo.getId())) {
+                        report.violation(candidate + " got version " + versionInfo.getVersion() + " but id " + versionInfo.getId());
+                    }
+                    // nobody else registers this thread's own candidates, so each must come after the last one
+                    if (!shared) {
+                        if (versionInfo.getVersion() <= lastOwnVersion) {
+                            report.violation("thread " + thread + " got version " + versionInfo.getVersion() + " after " + lastOwnVersion);
+                        }
+                        lastOwnVersion = versionInfo.getVersion();
+                    }
+                }
+            });
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        // registrations still in flight would show up as gaps in the versions checked below
+        if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Registrations still running after 5 minutes");
+        }
+        report.elapsedNanos = System.nanoTime() - startNanos;
+        verifyVersions(report, groupName);
+        return report;
+    }
+
+    // null when rejected or failed
+    private VersionInfo register(StressReport report, String groupName, String schemaData, boolean incompatible) {
+        long startNanos = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            Response response = null;
+            try {
+                response = createSchema(groupName, schemaData);
+                int status = response.getStatus();
+                if (status == Response.Status.CREATED.getStatusCode()) {
+                    report.accepted.recordValue(Math.min(System.nanoTime() - startNanos, HIGHEST_TRACKABLE_NANOS));
+                    (incompatible ? report.incompatibleAccepted : report.compatibleAccepted).incrementAndGet();
+                    return response.readEntity(VersionInfo.class);
+                }
+                if (status == Response.Status.CONFLICT.getStatusCode()) {
+                    report.rejected.recordValue(Math.min(System.nanoTime() - startNanos, HIGHEST_TRACKABLE_NANOS));
+                    (incompatible ? report.incompatibleRejected : report.compatibleRejected).incrementAndGet();
+                    return null;
+                }
+                if (status < 500 || attempt == maxRetries) {
+                    report.errors.incrementAndGet();
+                    return null;
+                }
+            } catch (ProcessingException e) {
+                if (attempt == maxRetries) {
+                    report.errors.incrementAndGet();
+                    return null;
+                }
+            } finally {
+                if (response != null) {
+                    response.close();
+                }
+            }
+            report.retries.incrementAndGet();
+            try {
+                Thread.sleep(10L << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.errors.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    // the registered versions must be 0..n-1 with ids in the same order, one per distinct accepted schema
+    private void verifyVersions(StressReport report, String groupName) {
+        Iterator<SchemaWithVersion> versions = new SchemaRegistryRestClient(client, schemaRegistryURI)
+                .schemaVersions(groupName, SCHEMA_TYPE, 100);
+        int expected = 0;
+        int lastId = -1;
+        while (versions.hasNext()) {
+            VersionInfo versionInfo = versions.next().getVersionInfo();
+            if (versionInfo.getVersion() != expected) {
+                report.violation("version " + versionInfo.getVersion() + " listed where " + expected + " was expected");
+            }
+            if (versionInfo.getId() <= lastId) {
+                report.violation("id " + versionInfo.getId() + " of version " + versionInfo.getVersion() + " is not above " + lastId);
+            }
+            lastId = versionInfo.getId();
+            expected++;
+        }
+        // the base version is not in report.versions
+        if (expected != report.versions.size() + 1) {
+            report.violation(expected + " versions listed for " + (report.versions.size() + 1) + " distinct schemas");
+        }
+        report.listedVersions = expected;
+    }
+
+    private Response createSchema(String groupName, String schemaData) {
+        SchemaInfo schemaInfo = new SchemaInfo()
+                .type(SCHEMA_TYPE)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.getBytes())
+                .properties(Collections.emptyMap());
+        WebTarget webTarget = client.target(schemaRegistryURI + "/v1/groups/" + groupName + "/schemas");
+        return webTarget.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(schemaInfo));
+    }
+
+    private static String schemaData(String typeOfA, String extraFields) {
+        return BASE_SCHEMA.replace("$A", typeOfA).replace("$EXTRA", extraFields);
+    }
+
+    private static void checkStatus(String operation, Response response, Response.Status expected) {
+        try {
+            if (response.getStatus() != expected.getStatusCode()) {
+                throw new IllegalStateException(operation + " failed with status " + response.getStatus());
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    public static class StressReport {
+        private final String policy;
+        private final Histogram accepted = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Histogram rejected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final AtomicLong compatibleAccepted = new AtomicLong();
+        private final AtomicLong compatibleRejected = new AtomicLong();
+        private final AtomicLong incompatibleAccepted = new AtomicLong();
+        private final AtomicLong incompatibleRejected = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        // candidate field name to the version it was registered as
+        private final ConcurrentMap<String, Integer> versions = new ConcurrentHashMap<>();
+        private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+        private volatile long elapsedNanos;
+        private volatile int listedVersions;
+
+        private StressReport(String policy) {
+            this.policy = policy;
+        }
+
+        private void violation(String violation) {
+            violations.add(violation);
+        }
+
+        public Histogram getAccepted() {
+            return accepted;
+        }
+
+        public Histogram getRejected() {
+            return rejected;
+        }
+
+        public long getCompatibleAccepted() {
+            return compatibleAccepted.get();
+        }
+
+        public long getCompatibleRejected() {
+            return compatibleRejected.get();
+        }
+
+        public long getIncompatibleAccepted() {
+            return incompatibleAccepted.get();
+        }
+
+        public long getIncompatibleRejected() {
+            return incompatibleRejected.get();
+        }
+
+        public long getRetries() {
+            return retries.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public List<String> getViolations() {
+            return new ArrayList<>(violations);
+        }
+
+        // versions in the group after the run, the base version included
+        public int getListedVersions() {
+            return listedVersions;
+        }
+
+        public static void printHeader(PrintStream out) {
+            out.println(String.format("%-18s %8s %8s %8s %7s %7s %10s %10s %10s %10s %10s", "policy", "attempts",
+                    "accepted", "rejected", "retries", "errors", "reg/s", "ok p50(ms)", "ok p99(ms)", "409 p50(ms)", "409 p99(ms)"));
+        }
+
+        public void print(PrintStream out) {
+            long attempts = accepted.getTotalCount() + rejected.getTotalCount() + errors.get();
+            out.println(String.format("%-18s %8d %8d %8d %7d %7d %10.1f %10.2f %10.2f %10.2f %10.2f", policy, attempts,
+                    accepted.getTotalCount(), rejected.getTotalCount(), retries.get(), errors.get(), attempts / (elapsedNanos / 1e9),
+                    accepted.getValueAtPercentile(50) / 1e6, accepted.getValueAtPercentile(99) / 1e6,
+                    rejected.getValueAtPercentile(50) / 1e6, rejected.getValueAtPercentile(99) / 1e6));
+            violations.forEach(violation -> out.println("  violation: " + violation));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SchemaEvolutionStress stress = new SchemaEvolutionStress(InMemorySchemaRegistry.resolveUri(InMemorySchemaRegistry.EMBEDDED), RestClients.shared())
+                .threads(Integer.getInteger("stress.threads", 32))
+                .registrationsPerThread(Integer.getInteger("stress.registrations", 100));
+        Map<String, io.pravega.schemaregistry.contract.data.Compatibility> policies = policies();
+        String prefix = "stressGrp" + System.currentTimeMillis() + "-";
+        StressReport.printHeader(System.out);
+        for (Map.Entry<String, io.pravega.schemaregistry.contract.data.Compatibility> policy : policies.entrySet()) {
+            String groupName = prefix + policy.getKey();
+            stress.createGroup(groupName, policy.getValue());
+            try {
+                stress.run(groupName, policy.getKey()).print(System.out);
+            } finally {
+                stress.deleteGroup(groupName);
+            }
+        }
+    }
+
+    // the policies SchemaVersionTests.verifySchemaEvolution walks, in the same order
+    static Map<String, io.pravega.schemaregistry.contract.data.Compatibility> policies() {
+        Map<String, io.pravega.schemaregistry.contract.data.Compatibility> policies = new LinkedHashMap<>();
+        policies.put("AllowAny", io.pravega.schemaregistry.contract.data.Compatibility.allowAny());
+        policies.put("DenyAll", io.pravega.schemaregistry.contract.data.Compatibility.denyAll());
+        policies.put("Backward", io.pravega.schemaregistry.contract.data.Compatibility.backward());
+        policies.put("Forward", io.pravega.schemaregistry.contract.data.Compatibility.forward());
+        policies.put("BackwardTransitive", io.pravega.schemaregistry.contract.data.Compatibility.backwardTransitive());
+        policies.put("ForwardTransitive", io.pravega.schemaregistry.contract.data.Compatibility.forwardTransitive());
+        policies.put("Full", io.pravega.schemaregistry.contract.data.Compatibility.full());
+        return policies;
+    }
+}
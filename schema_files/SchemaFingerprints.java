@@ -0,0 +1,62 @@
+package qe;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Fingerprints of the Avro Parsing Canonical Form, as lower-case hex: 16 digits for CRC-64-AVRO, 64 for SHA-256.
+// Schemas that differ only in docs, aliases, defaults or the order of JSON attributes share a fingerprint, and they
+// also share a binary encoding, so a writer can use whichever registered version the fingerprint resolves to.
+// exact() hashes the full schema instead, for lookups where defaults and aliases matter.
+public final class SchemaFingerprints {
+    public static final int CRC64_LENGTH = 16;
+    public static final int SHA256_LENGTH = 64;
+
+    private SchemaFingerprints() {
+    }
+
+    public static String crc64(Schema schema) {
+        return String.format("%016x", SchemaNormalization.parsingFingerprint64(schema));
+    }
+
+    public static String sha256(Schema schema) {
+        try {
+            return hex(SchemaNormalization.parsingFingerprint("SHA-256", schema));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // SHA-256 of the full schema JSON as Schema.toString() writes it, so docs, defaults and aliases count
+    public static String exact(Schema schema) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(schema.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String crc64(byte[] schemaData) {
+        return crc64(new Schema.Parser().parse(new String(schemaData, StandardCharsets.UTF_8)));
+    }
+
+    public static String sha256(byte[] schemaData) {
+        return sha256(new Schema.Parser().parse(new String(schemaData, StandardCharsets.UTF_8)));
+    }
+
+    public static boolean isFingerprint(String value) {
+        return (value.length() == CRC64_LENGTH || value.length() == SHA256_LENGTH)
+                && value.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
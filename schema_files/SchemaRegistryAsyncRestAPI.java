@@ -0,0 +1,130 @@
+package qe;
+
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import io.pravega.schemaregistry.contract.transform.ModelHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static javax.ws.rs.core.Response.Status.*;
+import static org.junit.Assert.assertEquals;
+
+// The SchemaRegistryRestAPI lifecycle driven through rx() for many groups at once. Each group still goes
+// create -> addSchema -> history/versions/find/encodings -> delete in order, but the groups run concurrently and
+// the independent reads in the middle are pipelined. -Dasync.groups sets how many lifecycles run (default 100).
+public class SchemaRegistryAsyncRestAPI {
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.93:9092");
+    private static Client client;
+    private static final int GROUPS = Integer.getInteger("async.groups", 100);
+    private static final int REQUESTS_PER_LIFECYCLE = 12;
+    private static final String SCHEMA_TYPE = "io.pravega.schemaregistry.test.integrationtest.generated.Type1";
+    private static final String SCHEMA_V0 = "{\"namespace\":\"io.pravega.schemaregistry.test.integrationtest.generated\",\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"},{\"name\":\"b\",\"type\":\"int\"}]}";
+    private static final String SCHEMA_V1 = "{\"namespace\":\"io.pravega.schemaregistry.test.integrationtest.generated\",\"type\":\"record\",\"name\":\"Type1\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+    private final String groupPrefix = "asyncGrp" + System.currentTimeMillis() + "-";
+
+    @BeforeClass
+    public static void setUp(){
+        client = RestClients.shared();
+    }
+
+    @Test
+    public void verifyConcurrentGroupLifecycles() throws Throwable {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> lifecycles = new ArrayList<>(GROUPS);
+        for (int i = 0; i < GROUPS; i++) {
+            lifecycles.add(lifecycle(groupPrefix + i).toCompletableFuture());
+        }
+        try {
+            CompletableFuture.allOf(lifecycles.toArray(new CompletableFuture[0])).get(5, TimeUnit.MINUTES);
+        } catch (ExecutionException e) {
+            // surface the first failed assertion rather than the future that wrapped it
+            throw e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println(String.format("%d group lifecycles (%d requests) in %d ms, pool %s",
+                GROUPS, GROUPS * REQUESTS_PER_LIFECYCLE, elapsedMillis, RestClients.poolStats()));
+    }
+
+    private CompletionStage<Void> lifecycle(String groupName) {
+        String groupURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName).toString();
+        return expect("Create Group status", post(schemaRegistryURI + "/v1/groups", createGroupRequest(groupName)), CREATED)
+                .thenCompose(r -> expect("addSchemasToGroup status", post(groupURl + "/schemas", schemaInfo(SCHEMA_V0)), CREATED))
+                .thenAccept(r -> assertEquals(new Integer(0), r.readEntity(VersionInfo.class).getVersion()))
+                .thenCompose(v -> expect("addSchemasToGroup status", post(groupURl + "/schemas", schemaInfo(SCHEMA_V1)), CREATED))
+                .thenAccept(r -> assertEquals(new Integer(1), r.readEntity(VersionInfo.class).getVersion()))
+                .thenCompose(v -> CompletableFuture.allOf(
+                        expect("Get History of Group status", get(groupURl + "/history"), OK)
+                                .thenAccept(r -> assertEquals(2, r.readEntity(GroupHistory.class).getHistory().size()))
+                                .toCompletableFuture(),
+                        expect("Get schemas status", get(groupURl + "/schemas/versions"), OK)
+                                .thenAccept(r -> assertEquals(2, r.readEntity(SchemaVersionsList.class).getSchemas().size()))
+                                .toCompletableFuture(),
+                        expect("Find schema version status", post(groupURl + "/schemas/versions/find", schemaInfo(SCHEMA_V0)), OK)
+                                .thenAccept(r -> assertEquals(new Integer(0), r.readEntity(VersionInfo.class).getVersion()))
+                                .toCompletableFuture(),
+                        encodingRoundTrip(groupURl, 0).toCompletableFuture(),
+                        encodingRoundTrip(groupURl, 1).toCompletableFuture()))
+                .thenCompose(v -> expect("Delete group status", client.target(groupURl).request().rx().delete(), NO_CONTENT))
+                .thenCompose(r -> expect("deleteGroup status", get(groupURl), NOT_FOUND))
+                .thenAccept(r -> r.close());
+    }
+
+    // PUT /encodings for the version, then GET /encodings/{encodingId} with the id it returned
+    private CompletionStage<Void> encodingRoundTrip(String groupURl, int version) {
+        GetEncodingIdRequest getEncodingIdRequest = new GetEncodingIdRequest()
+                .versionInfo(new VersionInfo().type(SCHEMA_TYPE).version(version).id(version).serializationFormat("Avro"))
+                .codecType("");
+        return expect("Get encodingId status", client.target(groupURl + "/encodings").request(MediaType.APPLICATION_JSON_TYPE)
+                .rx().put(Entity.json(getEncodingIdRequest)), OK)
+                .thenCompose(r -> expect("Get encodingInfo status",
+                        get(groupURl + "/encodings/" + r.readEntity(EncodingId.class).getEncodingId()), OK))
+                .thenAccept(r -> assertEquals(new Integer(version), r.readEntity(EncodingInfo.class).getVersionInfo().getVersion()));
+    }
+
+    private static CompletionStage<Response> expect(String message, CompletionStage<Response> response, Response.Status status) {
+        return response.thenApply(r -> {
+            assertEquals(message, status.getStatusCode(), r.getStatus());
+            return r;
+        });
+    }
+
+    private static CompletionStage<Response> get(String resourceURl) {
+        return client.target(resourceURl).request().rx().get();
+    }
+
+    private static CompletionStage<Response> post(String resourceURl, Object entity) {
+        return client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).rx().post(Entity.json(entity));
+    }
+
+    private static CreateGroupRequest createGroupRequest(String groupName) {
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new io.pravega.schemaregistry.contract.generated.rest.model.SerializationFormat()
+                        .serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()))
+                .allowMultipleTypes(false);
+        createGroupRequest.setGroupProperties(mygroup);
+        return createGroupRequest;
+    }
+
+    private static SchemaInfo schemaInfo(String schemaData) {
+        return new SchemaInfo()
+                .type(SCHEMA_TYPE)
+                .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                .schemaData(schemaData.getBytes())
+                .properties(Collections.emptyMap());
+    }
+}
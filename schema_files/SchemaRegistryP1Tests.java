@@ -9,10 +9,8 @@ import io.pravega.client.admin.impl.StreamManagerImpl;
 import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
 import io.pravega.client.stream.*;
 import io.pravega.client.stream.impl.JavaSerializer;
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 import io.pravega.schemaregistry.contract.generated.rest.model.*;
 import io.pravega.schemaregistry.contract.transform.ModelHelper;
-import io.pravega.shared.NameUtils;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -33,21 +31,19 @@ import static javax.ws.rs.core.Response.Status.*;
 import static org.junit.Assert.assertEquals;
 
 public class SchemaRegistryP1Tests {
-    private static String schemaRegistryURI = "http://10.243.41.92:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.92:9092");
     private static String controllerRestURI = "http://10.243.41.62:10080";
     private static String controllerURI = "tcp://10.243.41.62:9090";
     private static String resourceURl;
     private static Client client;
     private static String groupName1 = "grp"+ System.currentTimeMillis();
+    private static String groupName2 = "grpBatch"+ System.currentTimeMillis();
     private AtomicInteger startIndex = new AtomicInteger(0);
 
 
     @BeforeClass
     public static void setUp(){
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        client = ClientBuilder.newClient(clientConfig);
+        client = RestClients.shared();
     }
 
     @AfterClass
@@ -61,6 +57,9 @@ public class SchemaRegistryP1Tests {
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1).toString();
         Response response = client.target(resourceURl).request().delete();
         assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName2).toString();
+        response = client.target(resourceURl).request().delete();
+        assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
     }
 
     @Test
@@ -76,10 +75,8 @@ public class SchemaRegistryP1Tests {
 
     @Test
     public void verifyConcurrentCreationOfGroups(){
-        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups").toString();
-        Response response = client.target(resourceURl).request().get();
-        assertEquals("Get all Groups status", OK.getStatusCode(), response.getStatus());
-        int initialNumberOfGroups = response.readEntity(ListGroupsResponse.class).getGroups().size();
+        SchemaRegistryRestClient restClient = new SchemaRegistryRestClient(client, schemaRegistryURI);
+        long initialNumberOfGroups = restClient.countGroups();
 
         List<CompletableFuture> futures = new ArrayList();
         int numberOfGroupsToAdd = 10;
@@ -88,9 +85,7 @@ public class SchemaRegistryP1Tests {
         }
         futures.forEach(CompletableFuture::join);
 
-        response = client.target(resourceURl).request().get();
-        assertEquals("Get all Groups status", OK.getStatusCode(), response.getStatus());
-        assertEquals((initialNumberOfGroups+numberOfGroupsToAdd),response.readEntity(ListGroupsResponse.class).getGroups().size());
+        assertEquals((initialNumberOfGroups+numberOfGroupsToAdd),restClient.countGroups());
 
     }
 
@@ -126,6 +121,49 @@ public class SchemaRegistryP1Tests {
         assertEquals(10,schemaVersionsList.getSchemas().size());
     }
 
+    @Test
+    public void verifyBatchCreationOfSchemas(){
+        // same group shape as verifyConcurrentCreationOfSchemas, with all types registered in one request
+        int numberOfTypes = Integer.getInteger("batch.types", 200);
+        CreateGroupRequest createGroupRequest = new CreateGroupRequest();
+        createGroupRequest.setGroupName(groupName2);
+        GroupProperties mygroup = new GroupProperties().properties(Collections.emptyMap())
+                .serializationFormat(new io.pravega.schemaregistry.contract.generated.rest.model.SerializationFormat()
+                        .serializationFormat(SerializationFormat.SerializationFormatEnum.AVRO))
+                .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.forward()))
+                .allowMultipleTypes(true);
+        createGroupRequest.setGroupProperties(mygroup);
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups").toString();
+        Response response = client.target(resourceURl).request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(createGroupRequest));
+        assertEquals("Create Group status", CREATED.getStatusCode(), response.getStatus());
+
+        List<SchemaInfo> schemaInfos = new ArrayList<>();
+        for(int i=0; i < numberOfTypes; i++){
+            String schemaType = "Type"+i;
+            String schemaData = "{\"type\":\"record\",\"name\":\"$SCHEMA_TYPE\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+            schemaData = schemaData.replace("$SCHEMA_TYPE",schemaType);
+            schemaInfos.add(new SchemaInfo()
+                    .type(schemaType)
+                    .serializationFormat(ModelHelper.encode(io.pravega.schemaregistry.contract.data.SerializationFormat.Avro))
+                    .schemaData(schemaData.getBytes())
+                    .properties(Collections.emptyMap()));
+        }
+        long start = System.nanoTime();
+        List<VersionInfo> versionInfos = new SchemaRegistryRestClient(client, schemaRegistryURI).addSchemas(groupName2, schemaInfos);
+        System.out.println(String.format("registered %d types in %.1f ms", numberOfTypes, (System.nanoTime() - start) / 1e6));
+        assertEquals(numberOfTypes, versionInfos.size());
+        for(int i=0; i < numberOfTypes; i++){
+            assertEquals("Type"+i, versionInfos.get(i).getType());
+            assertEquals(new Integer(0), versionInfos.get(i).getVersion());
+        }
+
+        resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName2+"/schemas").toString();
+        response = client.target(resourceURl).request().get();
+        assertEquals("Get schemas status", OK.getStatusCode(), response.getStatus());
+        assertEquals(numberOfTypes, response.readEntity(SchemaVersionsList.class).getSchemas().size());
+    }
+
     @Test
     public void verifyRunningIOWithoutUsingSchemaRegistry(){
         String scope = "scopeNoSchema" + System.currentTimeMillis();
@@ -138,21 +176,15 @@ public class SchemaRegistryP1Tests {
         JavaSerializer<String> javaSerializer = new JavaSerializer<>();
         EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
         EventStreamWriter<String> writer = clientFactory.createEventWriter(stream, javaSerializer, EventWriterConfig.builder().build());
-        writer.writeEvent("Hello : I am not using schema registry ");
+        writer.writeEvent("Hello : I am not using schema registry ").join();
 
         ReaderGroupManager readerGroupManager = new ReaderGroupManagerImpl(scope, clientConfig, new SocketConnectionFactoryImpl(clientConfig));
         String rg = "rg" + stream + System.currentTimeMillis();
-        readerGroupManager.createReaderGroup(rg,
-                ReaderGroupConfig.builder().stream(NameUtils.getScopedStreamName(scope, stream)).disableAutomaticCheckpoints().build());
-        EventStreamReader<String> reader = clientFactory.createReader("r1", rg, javaSerializer, ReaderConfig.builder().build());
-        EventRead<String> event = reader.readNextEvent(10000);
-        int numberOfEvents = 0;
-        while (event.getEvent() != null || event.isCheckpoint()) {
-            System.out.println("event read: " + event.getEvent());
-            event = reader.readNextEvent(10000);
-            numberOfEvents++;
-        }
-        assertEquals(1, numberOfEvents);
+        readerGroupManager.createReaderGroup(rg, EventDrain.boundedToTail(clientConfig, scope, stream));
+        MeteredSerializer<String> deserializer = new MeteredSerializer<>(javaSerializer);
+        EventStreamReader<String> reader = clientFactory.createReader("r1", rg, deserializer, ReaderConfig.builder().build());
+        EventDrain.Stats stats = new EventDrain<>(reader, deserializer).drain(event -> System.out.println("event read: " + event)).print(System.out);
+        assertEquals(1, stats.getEvents());
     }
 
     private void createGroup(){
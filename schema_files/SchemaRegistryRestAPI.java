@@ -1,9 +1,10 @@
 package qe;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 
 import javax.ws.rs.client.*;
 import javax.ws.rs.core.MediaType;
@@ -22,13 +23,16 @@ import org.junit.runners.MethodSorters;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class SchemaRegistryRestAPI {
-    private static String schemaRegistryURI = "http://10.243.41.93:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.93:9092");
     private static String resourceURl;
     private static Client client;
+    // -Drest.mediaType=application/cbor or application/x-jackson-smile runs the suite with binary bodies
+    private static MediaType mediaType = MediaType.valueOf(System.getProperty("rest.mediaType", MediaType.APPLICATION_JSON));
     private WebTarget webTarget;
     private String groupName1 = "a1";
     private boolean namespacePresent = true;
@@ -38,10 +42,7 @@ public class SchemaRegistryRestAPI {
 
     @BeforeClass
     public static void setUp(){
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        client = ClientBuilder.newClient(clientConfig);
+        client = RestClients.shared();
     }
 
     @Test
@@ -57,25 +58,28 @@ public class SchemaRegistryRestAPI {
 
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.post(Entity.json(createGroupRequest));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.post(Entity.entity(createGroupRequest, mediaType));
         assertEquals("Create Group status", CREATED.getStatusCode(), response.getStatus());
     }
 
     @Test
     public void test02_listAllGroups(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get all Groups status", OK.getStatusCode(), response.getStatus());
         //System.out.println(response.readEntity(String.class));
         assertTrue(response.readEntity(ListGroupsResponse.class).getGroups().containsKey(groupName1));
+        // the same, a page at a time
+        assertTrue(Iterators.any(new SchemaRegistryRestClient(client, schemaRegistryURI).listGroups(100),
+                e -> e.getKey().equals(groupName1)));
 
     }
 
     @Test
     public void test03_fetchDetailsOfGroup(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1).toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("fetchDetailsOfGroup status", OK.getStatusCode(), response.getStatus());
         assertEquals("Avro",response.readEntity(GroupProperties.class).getSerializationFormat().getSerializationFormat().toString());
 
@@ -88,8 +92,8 @@ public class SchemaRegistryRestAPI {
                 .previousCompatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.forward()));
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/compatibility").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.put(Entity.json(updateCompatibilityRequest));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.put(Entity.entity(updateCompatibilityRequest, mediaType));
 
         assertEquals("Update schema status", OK.getStatusCode(), response.getStatus());
     }
@@ -124,8 +128,8 @@ public class SchemaRegistryRestAPI {
                 .properties(properties);
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.post(Entity.json(schemaInfo));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.post(Entity.entity(schemaInfo, mediaType));
         assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), response.getStatus());
         VersionInfo versionInfo = response.readEntity(VersionInfo.class);
         assertEquals(schemaType1,versionInfo.getType());
@@ -144,8 +148,8 @@ public class SchemaRegistryRestAPI {
                 .properties(properties);
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas").toString();
         webTarget = client.target(resourceURl);
-        builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        response = builder.post(Entity.json(schemaInfo));
+        builder = webTarget.request(mediaType);
+        response = builder.post(Entity.entity(schemaInfo, mediaType));
         assertEquals("addSchemasToGroup status", CREATED.getStatusCode(), response.getStatus());
         versionInfo = response.readEntity(VersionInfo.class);
         assertEquals(schemaType1,versionInfo.getType());
@@ -156,7 +160,7 @@ public class SchemaRegistryRestAPI {
     @Test
     public void test06_getHistoryOfGroup(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/history").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get History of Group status", OK.getStatusCode(), response.getStatus());
         GroupHistory groupHistory = response.readEntity(GroupHistory.class);
         assertEquals(2,groupHistory.getHistory().size());
@@ -167,7 +171,7 @@ public class SchemaRegistryRestAPI {
     @Test
     public void test07_getSchemas(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get schemas status", OK.getStatusCode(), response.getStatus());
         SchemaVersionsList schemaVersionsList = response.readEntity(SchemaVersionsList.class);
         assertEquals(1,schemaVersionsList.getSchemas().size());
@@ -181,10 +185,14 @@ public class SchemaRegistryRestAPI {
     @Test
     public void test08_getSchemaVersions(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/versions").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get schemas status", OK.getStatusCode(), response.getStatus());
         SchemaVersionsList schemaVersionsList = response.readEntity(SchemaVersionsList.class);
         assertEquals(2,schemaVersionsList.getSchemas().size());
+        // one version per page
+        List<SchemaWithVersion> paged = Lists.newArrayList(new SchemaRegistryRestClient(client, schemaRegistryURI).schemaVersions(groupName1, null, 1));
+        assertEquals(2,paged.size());
+        assertEquals(schemaVersionsList.getSchemas().get(1).getVersionInfo(),paged.get(1).getVersionInfo());
         SchemaWithVersion schemaWithVersion0 = schemaVersionsList.getSchemas().get(0);
         assertEquals("Avro",schemaWithVersion0.getSchemaInfo().getSerializationFormat().getSerializationFormat().toString());
         assertEquals(schemaType1,schemaWithVersion0.getVersionInfo().getType());
@@ -226,8 +234,8 @@ public class SchemaRegistryRestAPI {
                 .properties(properties);
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/versions/find").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.post(Entity.json(schemaInfo));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.post(Entity.entity(schemaInfo, mediaType));
         assertEquals("Find schema version status", OK.getStatusCode(), response.getStatus());
         VersionInfo versionInfo = response.readEntity(VersionInfo.class);
         assertEquals(schemaType1,versionInfo.getType());
@@ -239,7 +247,7 @@ public class SchemaRegistryRestAPI {
     public void test10_getSchemaFromSchemaId(){
         // GET /groups/{groupName}/schemas/schema/{schemaId}
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/schema/0").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get schemasFromSchemaId status", OK.getStatusCode(), response.getStatus());
         SchemaInfo schemaInfo = response.readEntity(SchemaInfo.class);
         assertEquals(schemaType1,schemaInfo.getType());
@@ -251,7 +259,7 @@ public class SchemaRegistryRestAPI {
         // GET /groups/{groupName}/schemas/format/{serializationFormat}/type/{type}/versions/{version}
         String schemaType = schemaType1;
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/format/Avro/type/"+schemaType+"/versions/1").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get schemasFromVersionNumber status", OK.getStatusCode(), response.getStatus());
         SchemaInfo schemaInfo = response.readEntity(SchemaInfo.class);
         assertEquals(schemaType,schemaInfo.getType());
@@ -281,8 +289,8 @@ public class SchemaRegistryRestAPI {
                 .compatibility(ModelHelper.encode(io.pravega.schemaregistry.contract.data.Compatibility.backward()));
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/versions/validate").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.post(Entity.json(validateRequest));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.post(Entity.entity(validateRequest, mediaType));
         assertEquals("validateSchemaVersions status", OK.getStatusCode(), response.getStatus());
         assertEquals(true, response.readEntity(Valid.class).isValid());
     }
@@ -308,8 +316,8 @@ public class SchemaRegistryRestAPI {
 
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/versions/canRead").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.post(Entity.json(schemaInfo));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.post(Entity.entity(schemaInfo, mediaType));
         assertEquals("canReadSchemaVersions", OK.getStatusCode(), response.getStatus());
         assertEquals(true, response.readEntity(CanRead.class).isCompatible());
     }
@@ -323,15 +331,15 @@ public class SchemaRegistryRestAPI {
 
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/encodings").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = builder.put(Entity.json(getEncodingIdRequest));
+        Invocation.Builder builder = webTarget.request(mediaType);
+        Response response = builder.put(Entity.entity(getEncodingIdRequest, mediaType));
         assertEquals("Get encodingId status", OK.getStatusCode(), response.getStatus());
         assertEquals(new Integer(0), response.readEntity(EncodingId.class).getEncodingId());
 
         getEncodingIdRequest = new GetEncodingIdRequest()
                 .versionInfo(new VersionInfo().type(schemaType1).version(1).id(1).serializationFormat("Avro"))
                 .codecType("");
-        response = builder.put(Entity.json(getEncodingIdRequest));
+        response = builder.put(Entity.entity(getEncodingIdRequest, mediaType));
         assertEquals("Get encodingId status", OK.getStatusCode(), response.getStatus());
         assertEquals(new Integer(1), response.readEntity(EncodingId.class).getEncodingId());
     }
@@ -340,7 +348,7 @@ public class SchemaRegistryRestAPI {
     public void test15_getEncodingInfo(){
         // GET /groups/{groupName}/encodings/{encodingId}
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/encodings/0").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get encodingInfo status", OK.getStatusCode(), response.getStatus());
         EncodingInfo encodingInfo0 = response.readEntity(EncodingInfo.class);
         assertEquals("Avro", encodingInfo0.getSchemaInfo().getSerializationFormat().getSerializationFormat().toString());
@@ -350,7 +358,7 @@ public class SchemaRegistryRestAPI {
         assertEquals("", encodingInfo0.getCodecType().getName());
 
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/encodings/1").toString();
-        response = client.target(resourceURl).request().get();
+        response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get encodingInfo status", OK.getStatusCode(), response.getStatus());
         EncodingInfo encodingInfo1 = response.readEntity(EncodingInfo.class);
         assertEquals(new Integer(1), encodingInfo1.getVersionInfo().getVersion());
@@ -364,13 +372,13 @@ public class SchemaRegistryRestAPI {
         //POST /groups/{groupName}/codecTypes
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/codecTypes").toString();
         webTarget = client.target(resourceURl);
-        Invocation.Builder builder = webTarget.request(MediaType.APPLICATION_JSON_TYPE);
+        Invocation.Builder builder = webTarget.request(mediaType);
         CodecType codecType = new CodecType().name("Snappy");
-        Response response = builder.post(Entity.json(codecType));
+        Response response = builder.post(Entity.entity(codecType, mediaType));
         assertEquals("Add new codec to Group status", CREATED.getStatusCode(), response.getStatus());
 
         codecType = new CodecType().name("Custom");
-        response = builder.post(Entity.json(codecType));
+        response = builder.post(Entity.entity(codecType, mediaType));
         assertEquals("Add new codec to Group status", CREATED.getStatusCode(), response.getStatus());
     }
 
@@ -378,7 +386,7 @@ public class SchemaRegistryRestAPI {
     public void test17_getCodecTypesForGroup(){
         // GET /groups/{groupName}/codecTypes
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/codecTypes").toString();
-        Response response = client.target(resourceURl).request().get();
+        Response response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get CodecTypesForGroup status", OK.getStatusCode(), response.getStatus());
         CodecTypes CodecTypes = response.readEntity(CodecTypes.class);
         assertEquals(2, CodecTypes.getCodecTypes().size());
@@ -422,7 +430,7 @@ public class SchemaRegistryRestAPI {
     public void test19_deleteSchemaUsingSchemaId(){
         // DELETE /groups/{groupName}/schemas/schema/{schemaId}
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/schema/0").toString();
-        Response response = client.target(resourceURl).request().delete();
+        Response response = client.target(resourceURl).request(mediaType).delete();
         assertEquals("deleteSchemaUsingSchemaId", NO_CONTENT.getStatusCode(), response.getStatus());
     }
 
@@ -431,12 +439,12 @@ public class SchemaRegistryRestAPI {
         // DELETE /groups/{groupName}/schemas/format/{serializationFormat}/type/{type}/versions/{version}
         String schemaType = schemaType1;
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas/format/Avro/type/"+schemaType+"/versions/1").toString();
-        Response response = client.target(resourceURl).request().delete();
+        Response response = client.target(resourceURl).request(mediaType).delete();
         assertEquals("deleteSchemaUsingVersionNumber", NO_CONTENT.getStatusCode(), response.getStatus());
 
         // verify schemas are deleted
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1+"/schemas").toString();
-        response = client.target(resourceURl).request().get();
+        response = client.target(resourceURl).request(mediaType).get();
         assertEquals("Get schemas status", OK.getStatusCode(), response.getStatus());
         SchemaVersionsList schemaVersionsList = response.readEntity(SchemaVersionsList.class);
         assertEquals(0,schemaVersionsList.getSchemas().size());
@@ -445,9 +453,9 @@ public class SchemaRegistryRestAPI {
     @Test
     public void test3_deleteGroup(){
         resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/"+groupName1).toString();
-        Response response = client.target(resourceURl).request().delete();
+        Response response = client.target(resourceURl).request(mediaType).delete();
         assertEquals("Delete group status", NO_CONTENT.getStatusCode(), response.getStatus());
-        response = client.target(resourceURl).request().get();
+        response = client.target(resourceURl).request(mediaType).get();
         assertEquals("deleteGroup status", NOT_FOUND.getStatusCode(), response.getStatus());
         System.out.println("Delete group successful");
 
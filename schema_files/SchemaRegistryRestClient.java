@@ -0,0 +1,432 @@
+package qe;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import io.pravega.schemaregistry.contract.generated.rest.model.*;
+import org.apache.avro.Schema;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static qe.InMemorySchemaRegistry.CONTINUATION_TOKEN;
+import static qe.InMemorySchemaRegistry.EPOCH;
+import static qe.InMemorySchemaRegistry.INCARNATION;
+import static qe.InMemorySchemaRegistry.NDJSON;
+import static qe.InMemorySchemaRegistry.REVISION;
+import static qe.InMemorySchemaRegistry.TOTAL_COUNT;
+
+import static javax.ws.rs.core.Response.Status.*;
+
+// Typed calls over the REST model for the endpoints the suites need beyond SchemaRegistryClient, on the shared
+// pooled client. Non-2xx answers other than the documented 404s surface as IllegalStateException with the status.
+public class SchemaRegistryRestClient {
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Client client;
+    private final String schemaRegistryURI;
+    private final MediaType mediaType;
+
+    public SchemaRegistryRestClient(String schemaRegistryURI) {
+        this(RestClients.shared(), schemaRegistryURI);
+    }
+
+    public SchemaRegistryRestClient(Client client, String schemaRegistryURI) {
+        this(client, schemaRegistryURI, MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    // mediaType is used for request and response bodies: JSON, or BinaryJsonProvider.CBOR_TYPE / SMILE_TYPE on a client
+    // that has BinaryJsonProvider registered, as the shared one does
+    public SchemaRegistryRestClient(Client client, String schemaRegistryURI, MediaType mediaType) {
+        this.client = client;
+        this.schemaRegistryURI = schemaRegistryURI;
+        this.mediaType = mediaType;
+    }
+
+    // region schemas
+    public VersionInfo addSchema(String groupId, SchemaInfo schemaInfo) {
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/").append(groupId).append("/schemas").toString();
+        Response response = client.target(resourceURl).request(mediaType).post(Entity.entity(schemaInfo, mediaType));
+        return read(response, CREATED, VersionInfo.class);
+    }
+
+    // Registers every schema in one request and returns their versions in the same order; the registry rejects the
+    // whole batch if any schema is incompatible. Registries without the batch endpoint get one POST per schema,
+    // which is not atomic.
+    public List<VersionInfo> addSchemas(String groupId, List<SchemaInfo> schemaInfos) {
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/").append(groupId).append("/schemas/batch").toString();
+        Response response = client.target(resourceURl).request(mediaType).post(Entity.entity(schemaInfos, mediaType));
+        if (response.getStatus() == NOT_FOUND.getStatusCode() || response.getStatus() == METHOD_NOT_ALLOWED.getStatusCode()) {
+            response.close();
+            List<VersionInfo> versionInfos = new ArrayList<>(schemaInfos.size());
+            for (SchemaInfo schemaInfo : schemaInfos) {
+                versionInfos.add(addSchema(groupId, schemaInfo));
+            }
+            return versionInfos;
+        }
+        return Arrays.asList(read(response, CREATED, VersionInfo[].class));
+    }
+    // endregion
+
+    // region encodings
+    // Every encoding of the group in one request, the index in the list being the encoding id. Registries without
+    // the bulk endpoint get one GET per encoding until the first unknown id.
+    public List<EncodingInfo> getEncodingInfos(String groupId) {
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/").append(groupId).append("/encodings").toString();
+        Response response = client.target(resourceURl).request(mediaType).get();
+        if (response.getStatus() == NOT_FOUND.getStatusCode() || response.getStatus() == METHOD_NOT_ALLOWED.getStatusCode()) {
+            response.close();
+            List<EncodingInfo> encodingInfos = new ArrayList<>();
+            while (true) {
+                response = client.target(resourceURl + "/" + encodingInfos.size()).request(mediaType).get();
+                if (response.getStatus() == NOT_FOUND.getStatusCode()) {
+                    response.close();
+                    return encodingInfos;
+                }
+                encodingInfos.add(read(response, OK, EncodingInfo.class));
+            }
+        }
+        return Arrays.asList(read(response, OK, EncodingInfo[].class));
+    }
+    // endregion
+
+    // region fingerprints
+    // Version of the schema with this fingerprint in the group, empty if the group has none. Versions that differ only
+    // in docs, defaults or aliases share the fingerprint, and the latest of them is returned.
+    public Optional<VersionInfo> findVersionByFingerprint(String groupId, String fingerprint) {
+        return findVersionByFingerprint(groupId, fingerprint, null);
+    }
+
+    // exact (SchemaFingerprints.exact) narrows the fingerprint's versions to the one with the same full schema
+    private Optional<VersionInfo> findVersionByFingerprint(String groupId, String fingerprint, @Nullable String exact) {
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/").append(groupId)
+                .append("/schemas/versions/fingerprint/").append(fingerprint).toString();
+        WebTarget target = client.target(resourceURl);
+        Response response = (exact == null ? target : target.queryParam("exact", exact)).request(mediaType).get();
+        if (response.getStatus() == NOT_FOUND.getStatusCode()) {
+            response.close();
+            return Optional.empty();
+        }
+        return Optional.of(read(response, OK, VersionInfo.class));
+    }
+
+    // Groups that have a schema with this fingerprint, and its version in each.
+    public Map<String, VersionInfo> groupsByFingerprint(String fingerprint) {
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/schemas/fingerprint/").append(fingerprint).toString();
+        Response response = client.target(resourceURl).request(mediaType).get();
+        return read(response, OK, AddedTo.class).getGroups();
+    }
+
+    // Looks an Avro schema up by its CRC-64 fingerprint first, so a known schema costs a GET of a short path instead of
+    // posting the full schema to /schemas/versions/find. Like find, it only matches a version with the same full
+    // schema: the fingerprint ignores defaults and aliases, which change how readers resolve data, so the lookup
+    // carries SchemaFingerprints.exact too. Empty if the schema is not registered in the group.
+    public Optional<VersionInfo> findVersion(String groupId, SchemaInfo schemaInfo) {
+        if (schemaInfo.getSerializationFormat().getSerializationFormat() == SerializationFormat.SerializationFormatEnum.AVRO) {
+            Schema schema = new Schema.Parser().parse(new String(schemaInfo.getSchemaData(), StandardCharsets.UTF_8));
+            Optional<VersionInfo> byFingerprint = findVersionByFingerprint(groupId, SchemaFingerprints.crc64(schema),
+                    SchemaFingerprints.exact(schema));
+            if (byFingerprint.isPresent() && byFingerprint.get().getType().equals(schemaInfo.getType())) {
+                return byFingerprint;
+            }
+        }
+        String resourceURl = new StringBuilder(schemaRegistryURI).append("/v1/groups/").append(groupId)
+                .append("/schemas/versions/find").toString();
+        Response response = client.target(resourceURl).request(mediaType).post(Entity.entity(schemaInfo, mediaType));
+        if (response.getStatus() == NOT_FOUND.getStatusCode()) {
+            response.close();
+            return Optional.empty();
+        }
+        return Optional.of(read(response, OK, VersionInfo.class));
+    }
+    // endregion
+
+    // region listing
+    // Iterators that fetch pageSize items at a time, each page only once the previous one is used up. Registries that
+    // ignore ?limit= answer everything in the first page.
+    public Iterator<Map.Entry<String, GroupProperties>> listGroups(int pageSize) {
+        return new Pages<>(token -> {
+            Response response = page(target("/v1/groups"), pageSize, token).request(mediaType).get();
+            ListGroupsResponse groups = read(response, OK, ListGroupsResponse.class);
+            String next = response.getHeaderString(CONTINUATION_TOKEN);
+            // without the header, a full page may be followed by more
+            if (next == null && groups.getGroups().size() >= pageSize) {
+                next = groups.getContinuationToken();
+            }
+            return new Page<>(new ArrayList<>(groups.getGroups().entrySet()), next);
+        });
+    }
+
+    public Iterator<SchemaWithVersion> schemaVersions(String groupId, String type, int pageSize) {
+        return new Pages<>(token -> {
+            Response response = page(versionsTarget(groupId, type), pageSize, token).request(mediaType).get();
+            List<SchemaWithVersion> versions = read(response, OK, SchemaVersionsList.class).getSchemas();
+            return new Page<>(versions, response.getHeaderString(CONTINUATION_TOKEN));
+        });
+    }
+
+    public Iterator<GroupHistoryRecord> history(String groupId, int pageSize) {
+        return new Pages<>(token -> {
+            Response response = page(target("/v1/groups/" + groupId + "/history"), pageSize, token).request(mediaType).get();
+            List<GroupHistoryRecord> records = read(response, OK, GroupHistory.class).getHistory();
+            return new Page<>(records, response.getHeaderString(CONTINUATION_TOKEN));
+        });
+    }
+
+    // Whole listings in one request as NDJSON, handed to action as each line is parsed. Registries that answer plain
+    // JSON are paged through instead. Returns the number of items.
+    public long streamGroups(Consumer<CreateGroupRequest> action) {
+        return stream(target("/v1/groups"), CreateGroupRequest.class, action, () -> Iterators.transform(listGroups(1000),
+                e -> new CreateGroupRequest().groupName(e.getKey()).groupProperties(e.getValue())));
+    }
+
+    public long streamSchemaVersions(String groupId, String type, Consumer<SchemaWithVersion> action) {
+        return stream(versionsTarget(groupId, type), SchemaWithVersion.class, action, () -> schemaVersions(groupId, type, 1000));
+    }
+
+    public long streamHistory(String groupId, Consumer<GroupHistoryRecord> action) {
+        return stream(target("/v1/groups/" + groupId + "/history"), GroupHistoryRecord.class, action, () -> history(groupId, 1000));
+    }
+
+    // X-Total-Count from a HEAD request, or a count of the paged listing where the registry does not answer it
+    public long countGroups() {
+        return count(target("/v1/groups"), () -> listGroups(1000));
+    }
+
+    public long countSchemaVersions(String groupId, String type) {
+        return count(versionsTarget(groupId, type), () -> schemaVersions(groupId, type, 1000));
+    }
+
+    public long countHistory(String groupId) {
+        return count(target("/v1/groups/" + groupId + "/history"), () -> history(groupId, 1000));
+    }
+
+    private WebTarget target(String path) {
+        return client.target(new StringBuilder(schemaRegistryURI).append(path).toString());
+    }
+
+    private WebTarget versionsTarget(String groupId, String type) {
+        WebTarget target = target("/v1/groups/" + groupId + "/schemas/versions");
+        return type == null ? target : target.queryParam("type", type);
+    }
+
+    private static WebTarget page(WebTarget target, int pageSize, String token) {
+        target = target.queryParam("limit", pageSize);
+        return token == null ? target : target.queryParam("continuationToken", token);
+    }
+
+    private static <T> long stream(WebTarget target, Class<T> type, Consumer<? super T> action, Supplier<Iterator<? extends T>> pages) {
+        Response response = target.request(NDJSON, MediaType.APPLICATION_JSON).get();
+        MediaType mediaType = response.getMediaType();
+        if (response.getStatus() == OK.getStatusCode() && (mediaType == null || !mediaType.isCompatible(MediaType.valueOf(NDJSON)))) {
+            response.close();
+            long count = 0;
+            for (Iterator<? extends T> items = pages.get(); items.hasNext(); count++) {
+                action.accept(items.next());
+            }
+            return count;
+        }
+        long count = 0;
+        try (InputStream in = read(response, OK, InputStream.class);
+             MappingIterator<T> items = MAPPER.readerFor(type).readValues(in)) {
+            for (; items.hasNext(); count++) {
+                action.accept(items.next());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private static long count(WebTarget target, Supplier<Iterator<?>> pages) {
+        Response response = target.request().head();
+        String total = response.getHeaderString(TOTAL_COUNT);
+        response.close();
+        if (response.getStatus() == OK.getStatusCode() && total != null) {
+            return Long.parseLong(total);
+        }
+        return Iterators.size(pages.get());
+    }
+
+    private static final class Page<T> {
+        private final List<T> items;
+        private final String next;
+
+        private Page(List<T> items, String next) {
+            this.items = items;
+            this.next = next;
+        }
+    }
+
+    private static final class Pages<T> implements Iterator<T> {
+        private final Function<String, Page<T>> fetch;
+        private Iterator<T> current = Collections.emptyIterator();
+        private String next;
+        private boolean started;
+
+        private Pages(Function<String, Page<T>> fetch) {
+            this.fetch = fetch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (started && next == null) {
+                    return false;
+                }
+                Page<T> page = fetch.apply(next);
+                started = true;
+                current = page.items.iterator();
+                next = page.items.isEmpty() ? null : page.next;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+    // endregion
+
+    // region history snapshots
+    // History records after the first `revision`, all in one response.
+    public List<GroupHistoryRecord> historySince(String groupId, int revision) {
+        return since(groupId, revision).records;
+    }
+
+    // The group's state: with previous (what an earlier call returned) it is rolled forward with the records added
+    // since, one request however long the history. Without it, when the group changed in a way history does not
+    // record or when it was deleted and created again, it is the latest snapshot plus the records after that.
+    // Registries without snapshots get the group properties, codec types and live versions listed instead.
+    public GroupSnapshot groupState(String groupId, @Nullable GroupSnapshot previous) {
+        if (previous != null && previous.getEpoch() >= 0) {
+            Delta delta = since(groupId, previous.getRevision());
+            if (delta.matches(previous)) {
+                return previous.apply(delta.records);
+            }
+        }
+        // a change between the snapshot and the records moves the epoch on, then the next snapshot has it
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Response response = target("/v1/groups/" + groupId + "/history/snapshot").request(mediaType).get();
+            if (response.getStatus() == NOT_FOUND.getStatusCode() || response.getStatus() == METHOD_NOT_ALLOWED.getStatusCode()) {
+                response.close();
+                return replay(groupId);
+            }
+            GroupSnapshot snapshot = read(response, OK, GroupSnapshot.class);
+            Delta delta = since(groupId, snapshot.getRevision());
+            if (delta.matches(snapshot)) {
+                return snapshot.apply(delta.records);
+            }
+        }
+        throw new IllegalStateException("Group " + groupId + " changed during every attempt to read its state");
+    }
+
+    private Delta since(String groupId, int revision) {
+        Response response = target("/v1/groups/" + groupId + "/history").queryParam("sinceRevision", revision).request(mediaType).get();
+        String epoch = response.getHeaderString(EPOCH);
+        List<GroupHistoryRecord> records = read(response, OK, GroupHistory.class).getHistory();
+        if (epoch == null) {
+            return new Delta(records, -1, -1);
+        }
+        int dash = epoch.indexOf('-');
+        return dash < 0 ? new Delta(records, -1, Long.parseLong(epoch))
+                : new Delta(records, Long.parseLong(epoch.substring(0, dash)), Long.parseLong(epoch.substring(dash + 1)));
+    }
+
+    private GroupSnapshot replay(String groupId) {
+        GroupProperties groupProperties = read(target("/v1/groups/" + groupId).request(mediaType).get(), OK, GroupProperties.class);
+        List<CodecType> codecTypes = read(target("/v1/groups/" + groupId + "/codecTypes").request(mediaType).get(), OK,
+                CodecTypes.class).getCodecTypes();
+        List<SchemaWithVersion> schemas = Lists.newArrayList(schemaVersions(groupId, null, 1000));
+        return new GroupSnapshot((int) countHistory(groupId), -1, -1, groupProperties, schemas,
+                codecTypes == null ? new ArrayList<>() : codecTypes);
+    }
+
+    private static final class Delta {
+        private final List<GroupHistoryRecord> records;
+        private final long incarnation;
+        private final long epoch;
+
+        private Delta(List<GroupHistoryRecord> records, long incarnation, long epoch) {
+            this.records = records;
+            this.incarnation = incarnation;
+            this.epoch = epoch;
+        }
+
+        // a group deleted and created again since starts its epochs over, so the incarnation has to match too
+        private boolean matches(GroupSnapshot snapshot) {
+            return epoch == snapshot.getEpoch() && incarnation == snapshot.getIncarnation();
+        }
+    }
+    // endregion
+
+    // region watch
+    // Changes after `revision` (negative for the group's current one), as soon as there are any, or none once timeout
+    // has passed. Null when the group does not exist. See GroupWatcher.
+    Changes watch(String groupId, long revision, Duration timeout) {
+        return watch(groupId, -1, revision, timeout);
+    }
+
+    // With the incarnation an earlier call returned, a group deleted and created again since answers every change of
+    // the new group under a different incarnation, however far its revisions got.
+    Changes watch(String groupId, long incarnation, long revision, Duration timeout) {
+        WebTarget target = target("/v1/groups/" + groupId + "/watch").queryParam("timeoutMs", timeout.toMillis());
+        if (revision >= 0) {
+            target = target.queryParam("revision", revision);
+        }
+        if (incarnation >= 0) {
+            target = target.queryParam("incarnation", incarnation);
+        }
+        Response response = target.request(mediaType).get();
+        if (response.getStatus() == NOT_FOUND.getStatusCode()) {
+            response.close();
+            return null;
+        }
+        String next = response.getHeaderString(REVISION);
+        String nextIncarnation = response.getHeaderString(INCARNATION);
+        List<GroupChange> changes = Arrays.asList(read(response, OK, GroupChange[].class));
+        long nextRevision = next != null ? Long.parseLong(next)
+                : changes.isEmpty() ? revision : changes.get(changes.size() - 1).getRevision();
+        return new Changes(nextIncarnation == null ? -1 : Long.parseLong(nextIncarnation), nextRevision, changes);
+    }
+
+    static final class Changes {
+        // what to pass to the next watch; incarnation is -1 from registries that do not send one
+        final long incarnation;
+        final long revision;
+        final List<GroupChange> changes;
+
+        private Changes(long incarnation, long revision, List<GroupChange> changes) {
+            this.incarnation = incarnation;
+            this.revision = revision;
+            this.changes = changes;
+        }
+    }
+    // endregion
+
+    static <T> T read(Response response, Response.Status expected, Class<T> type) {
+        if (response.getStatus() != expected.getStatusCode()) {
+            String body = response.hasEntity() ? response.readEntity(String.class) : "";
+            throw new IllegalStateException("Expected " + expected.getStatusCode() + " but got " + response.getStatus() + " " + body);
+        }
+        return response.readEntity(type);
+    }
+}
@@ -0,0 +1,178 @@
+package qe;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.contract.data.CodecType;
+import io.pravega.schemaregistry.contract.data.EncodingId;
+import io.pravega.schemaregistry.contract.data.EncodingInfo;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+// Writer/reader schema resolutions for one group, keyed by (writer encoding id, reader schema fingerprint, data
+// model). An entry holds the writer schema parsed once, the encoding's codec and a DatumReader over that pair of Schema
+// instances. Avro compiles the ResolvingDecoder grammar once per thread for each (writer, reader) instance pair and
+// reuses it after that, so while an entry is cached an event costs a grammar lookup instead of a resolve().
+// Bounded to maximumSize entries, least recently used first out; stats() has the hit rate. Deserializers of the
+// same group should share one.
+public class SchemaResolutionCache {
+    private final IntFunction<Writer> writers;
+    private final Cache<Key, Resolution> resolutions;
+
+    public SchemaResolutionCache(SchemaRegistryClient client, String groupId, long maximumSize) {
+        this(encodingId -> writer(client.getEncodingInfo(groupId, new EncodingId(encodingId))), maximumSize);
+    }
+
+    SchemaResolutionCache(IntFunction<Writer> writers, long maximumSize) {
+        this.writers = writers;
+        this.resolutions = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    // Hash of the full schema JSON: defaults and aliases change how data resolves, so unlike SchemaFingerprints the
+    // canonical form is not enough. Reader schemas parsed from the same JSON share entries.
+    static HashCode fingerprint(Schema schema) {
+        return Hashing.murmur3_128().hashString(schema.toString(), StandardCharsets.UTF_8);
+    }
+
+    // reader null reads with the writer's own schema; a SpecificData model reads into its generated classes
+    Resolution get(int encodingId, @Nullable HashCode readerFingerprint, @Nullable Schema reader, GenericData model) {
+        try {
+            return resolutions.get(new Key(encodingId, readerFingerprint, model), () -> {
+                Writer writer = writers.apply(encodingId);
+                return new Resolution(writer, reader == null ? writer.schema : reader, model);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to resolve encoding " + encodingId, e.getCause());
+        }
+    }
+
+    // Resolves every encoding at once instead of on its first event: encodings.get(i) is encoding id i, as
+    // SchemaRegistryRestClient.getEncodingInfos returns them. Writer schemas are parsed on executor, once per distinct
+    // schema however many codecs it is encoded with. Entries already cached are kept.
+    void warmUp(List<io.pravega.schemaregistry.contract.generated.rest.model.EncodingInfo> encodings,
+                @Nullable HashCode readerFingerprint, @Nullable Schema reader, GenericData model, Executor executor) {
+        Map<String, CompletableFuture<Schema>> schemas = new HashMap<>();
+        List<CompletableFuture<?>> pending = new ArrayList<>(encodings.size());
+        for (int encodingId = 0; encodingId < encodings.size(); encodingId++) {
+            Key key = new Key(encodingId, readerFingerprint, model);
+            if (resolutions.asMap().containsKey(key)) {
+                continue;
+            }
+            io.pravega.schemaregistry.contract.generated.rest.model.EncodingInfo encodingInfo = encodings.get(encodingId);
+            io.pravega.schemaregistry.contract.generated.rest.model.CodecType codecType = encodingInfo.getCodecType();
+            String schemaData = new String(encodingInfo.getSchemaInfo().getSchemaData(), StandardCharsets.UTF_8);
+            pending.add(schemas.computeIfAbsent(schemaData, json -> CompletableFuture.supplyAsync(() -> new Schema.Parser().parse(json), executor))
+                    .thenAcceptAsync(schema -> {
+                        Writer writer = writer(schema, codecType == null ? null : codecType.getName(),
+                                codecType == null ? null : codecType.getProperties());
+                        resolutions.asMap().putIfAbsent(key, new Resolution(writer, reader == null ? schema : reader, model));
+                    }, executor));
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Unable to warm up " + encodings.size() + " encodings", e.getCause());
+        }
+    }
+
+    public CacheStats stats() {
+        return resolutions.stats();
+    }
+
+    public long size() {
+        return resolutions.size();
+    }
+
+    private static Writer writer(EncodingInfo encodingInfo) {
+        ByteBuffer schemaData = encodingInfo.getSchemaInfo().getSchemaData();
+        byte[] bytes = new byte[schemaData.remaining()];
+        schemaData.duplicate().get(bytes);
+        Schema schema = new Schema.Parser().parse(new String(bytes, StandardCharsets.UTF_8));
+        CodecType codecType = encodingInfo.getCodecType();
+        return codecType == null ? writer(schema, null, null) : writer(schema, codecType.getName(), codecType.getProperties());
+    }
+
+    private static Writer writer(Schema schema, @Nullable String codecName, @Nullable Map<String, String> codecProperties) {
+        if (codecName == null) {
+            return new Writer(schema, "", Collections.emptyMap());
+        }
+        return new Writer(schema, codecName, codecProperties == null ? Collections.emptyMap() : codecProperties);
+    }
+
+    static final class Writer {
+        private final Schema schema;
+        private final String codecName;
+        private final Map<String, String> codecProperties;
+
+        Writer(Schema schema, String codecName, Map<String, String> codecProperties) {
+            this.schema = schema;
+            this.codecName = codecName;
+            this.codecProperties = codecProperties;
+        }
+    }
+
+    static final class Resolution {
+        final String codecName;
+        final Map<String, String> codecProperties;
+        final GenericDatumReader<Object> datumReader;
+
+        private Resolution(Writer writer, Schema reader, GenericData model) {
+            this.codecName = writer.codecName;
+            this.codecProperties = writer.codecProperties;
+            this.datumReader = model instanceof SpecificData
+                    ? new SpecificDatumReader<>(writer.schema, reader, (SpecificData) model)
+                    : new GenericDatumReader<>(writer.schema, reader, model);
+        }
+    }
+
+    private static final class Key {
+        private final int encodingId;
+        private final HashCode readerFingerprint;
+        private final GenericData model;
+
+        private Key(int encodingId, HashCode readerFingerprint, GenericData model) {
+            this.encodingId = encodingId;
+            this.readerFingerprint = readerFingerprint;
+            this.model = model;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return encodingId == key.encodingId && model == key.model
+                    && (readerFingerprint == null ? key.readerFingerprint == null : readerFingerprint.equals(key.readerFingerprint));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * encodingId + (readerFingerprint == null ? 0 : readerFingerprint.hashCode());
+            return 31 * result + System.identityHashCode(model);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package qe;
 
-import io.pravega.controller.server.rest.generated.api.JacksonJsonProvider;
 import io.pravega.schemaregistry.contract.generated.rest.model.*;
 import io.pravega.schemaregistry.contract.transform.ModelHelper;
 import org.junit.AfterClass;
@@ -17,9 +16,10 @@ import java.util.Map;
 
 import static javax.ws.rs.core.Response.Status.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SchemaVersionTests {
-    private static String schemaRegistryURI = "http://10.243.41.62:9092";
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.62:9092");
     private static String resourceURl;
     private static Client client;
     private WebTarget webTarget;
@@ -27,10 +27,7 @@ public class SchemaVersionTests {
 
     @BeforeClass
     public static void setUp(){
-        org.glassfish.jersey.client.ClientConfig clientConfig = new org.glassfish.jersey.client.ClientConfig();
-        clientConfig.register(JacksonJsonProvider.class);
-        clientConfig.property("sun.net.http.allowRestrictedHeaders", "true");
-        client = ClientBuilder.newClient(clientConfig);
+        client = RestClients.shared();
     }
 
     @AfterClass
@@ -100,6 +97,41 @@ public class SchemaVersionTests {
         testCompatibilityFull();
     }
 
+    @Test
+    public void verifyConcurrentSchemaEvolution() throws InterruptedException {
+        // Many writers racing addSchema on one group and type, once per compatibility policy
+        int threads = 8;
+        int registrationsPerThread = 20;
+        SchemaEvolutionStress stress = new SchemaEvolutionStress(schemaRegistryURI, client)
+                .threads(threads)
+                .registrationsPerThread(registrationsPerThread);
+        SchemaEvolutionStress.StressReport.printHeader(System.out);
+        for (Map.Entry<String, io.pravega.schemaregistry.contract.data.Compatibility> policy : SchemaEvolutionStress.policies().entrySet()) {
+            String groupName = "grpStress" + policy.getKey();
+            stress.createGroup(groupName, policy.getValue());
+            groupNames.add(groupName);
+            SchemaEvolutionStress.StressReport report = stress.run(groupName, policy.getKey());
+            report.print(System.out);
+            assertTrue("Violations for " + policy.getKey() + ": " + report.getViolations(), report.getViolations().isEmpty());
+            assertEquals("Errors for " + policy.getKey(), 0, report.getErrors());
+            assertEquals("Registrations for " + policy.getKey(), threads * registrationsPerThread,
+                    report.getAccepted().getTotalCount() + report.getRejected().getTotalCount());
+            switch (policy.getKey()) {
+                case "AllowAny":
+                    assertEquals("Rejected for AllowAny", 0, report.getRejected().getTotalCount());
+                    break;
+                case "DenyAll":
+                    assertEquals("Accepted for DenyAll", 0, report.getAccepted().getTotalCount());
+                    assertEquals("Versions for DenyAll", 1, report.getListedVersions());
+                    break;
+                default:
+                    // a field with a default evolves Type1 under every other policy, retyping a never does
+                    assertEquals("Compatible rejected for " + policy.getKey(), 0, report.getCompatibleRejected());
+                    assertEquals("Incompatible accepted for " + policy.getKey(), 0, report.getIncompatibleAccepted());
+            }
+        }
+    }
+
     private void testCompatibilityAllowAny(){
         String groupName = "grpAllowAny";
         createGroup(groupName,Collections.emptyMap(),SerializationFormat.SerializationFormatEnum.AVRO,
@@ -0,0 +1,116 @@
+package qe;
+
+import io.pravega.client.stream.Serializer;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
+import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
+import io.pravega.schemaregistry.contract.data.Compatibility;
+import io.pravega.schemaregistry.contract.data.GroupProperties;
+import io.pravega.schemaregistry.contract.data.SerializationFormat;
+import io.pravega.schemaregistry.serializer.avro.impl.AvroSerializerFactory;
+import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
+import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+// Time to build one Avro serializer per group across thousands of groups, which is what a restarting writer pays:
+//   uncached - every construction goes to the registry (version for schema + encoding id round trips)
+//   cold     - a fresh CachingSchemaRegistryClient per iteration, i.e. the first start of a writer process
+//   warm     - a CachingSchemaRegistryClient that has already seen every group, i.e. a restart within the process
+// Runs against the in-memory registry unless -DschemaRegistryURI points elsewhere.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerConstructionBenchmark {
+    private static final Schema SCHEMA = SchemaBuilder
+            .record("Payment")
+            .fields()
+            .requiredString("id")
+            .requiredLong("amount")
+            .endRecord();
+    private static final AvroSchema<GenericRecord> AVRO_SCHEMA = AvroSchema.ofRecord(SCHEMA);
+
+    @Param({"1000", "5000"})
+    public int groups;
+
+    private final String prefix = "construct" + System.currentTimeMillis() + "-";
+    private SchemaRegistryClient registryClient;
+    private CachingSchemaRegistryClient coldClient;
+    private CachingSchemaRegistryClient warmClient;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String schemaRegistryURI = InMemorySchemaRegistry.resolveUri(InMemorySchemaRegistry.EMBEDDED);
+        registryClient = SchemaRegistryClientFactory.withDefaultNamespace(SchemaRegistryClientConfig.builder()
+                .schemaRegistryUri(URI.create(schemaRegistryURI)).build());
+        for (int i = 0; i < groups; i++) {
+            registryClient.addGroup(prefix + i, new GroupProperties(SerializationFormat.Avro, Compatibility.backward(), false));
+            registryClient.addSchema(prefix + i, AVRO_SCHEMA.getSchemaInfo());
+        }
+        warmClient = new CachingSchemaRegistryClient(registryClient, 4L * groups);
+        constructAll(warmClient, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void newColdClient() {
+        coldClient = new CachingSchemaRegistryClient(registryClient, 4L * groups);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warmClient.printStats(System.out);
+        for (int i = 0; i < groups; i++) {
+            registryClient.removeGroup(prefix + i);
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole bh) {
+        constructAll(registryClient, bh);
+    }
+
+    @Benchmark
+    public void cold(Blackhole bh) {
+        constructAll(coldClient, bh);
+    }
+
+    @Benchmark
+    public void warm(Blackhole bh) {
+        constructAll(warmClient, bh);
+    }
+
+    private void constructAll(SchemaRegistryClient client, Blackhole bh) {
+        for (int i = 0; i < groups; i++) {
+            SerializerConfig serializerConfig = SerializerConfig.builder()
+                    .groupId(prefix + i)
+                    .registerSchema(false)
+                    .registryClient(client)
+                    .build();
+            Serializer<GenericRecord> serializer = AvroSerializerFactory.serializer(serializerConfig, AVRO_SCHEMA);
+            if (bh != null) {
+                bh.consume(serializer);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SerializerConstructionBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-DschemaRegistryURI=" + System.getProperty("schemaRegistryURI", InMemorySchemaRegistry.EMBEDDED))
+                .build();
+        new Runner(options).run();
+    }
+}
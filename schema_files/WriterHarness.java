@@ -0,0 +1,119 @@
+package qe;
+
+import io.pravega.client.stream.EventStreamWriter;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+// Drives an EventStreamWriter with up to maxInFlight outstanding writeEvent futures instead of join()ing each one,
+// optionally flushing every flushEvery events, and reports events/s, MB/s and per-event serialize latency.
+// The writer must have been created with the MeteredSerializer passed in here.
+public class WriterHarness<T> {
+    private final EventStreamWriter<T> writer;
+    private final MeteredSerializer<T> serializer;
+    private int maxInFlight = 1000;
+    private int flushEvery = 0;
+
+    public WriterHarness(EventStreamWriter<T> writer, MeteredSerializer<T> serializer) {
+        this.writer = writer;
+        this.serializer = serializer;
+    }
+
+    public WriterHarness<T> maxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    // 0 leaves batching to the writer and only flushes once at the end
+    public WriterHarness<T> flushEvery(int flushEvery) {
+        this.flushEvery = flushEvery;
+        return this;
+    }
+
+    public Stats write(long events, LongFunction<T> eventFactory) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        Histogram latencyBefore = serializer.getSerializeLatency().copy();
+        long bytesBefore = serializer.getSerializedBytes();
+        long start = System.nanoTime();
+        for (long i = 0; i < events; i++) {
+            T event = eventFactory.apply(i);
+            inFlight.acquire();
+            writer.writeEvent(event).whenComplete((v, e) -> {
+                if (e != null) {
+                    failures.incrementAndGet();
+                    firstFailure.compareAndSet(null, e);
+                }
+                inFlight.release();
+            });
+            if (flushEvery > 0 && (i + 1) % flushEvery == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        // every outstanding write has completed once all permits are back
+        inFlight.acquire(maxInFlight);
+        long elapsedNanos = System.nanoTime() - start;
+        Histogram serializeLatency = serializer.getSerializeLatency().copy();
+        serializeLatency.subtract(latencyBefore);
+        if (firstFailure.get() != null) {
+            throw new IllegalStateException(failures.get() + " of " + events + " writes failed", firstFailure.get());
+        }
+        return new Stats(events, serializer.getSerializedBytes() - bytesBefore, elapsedNanos, serializeLatency);
+    }
+
+    public static class Stats {
+        private final long events;
+        private final long bytes;
+        private final long elapsedNanos;
+        private final Histogram serializeLatency;
+
+        private Stats(long events, long bytes, long elapsedNanos, Histogram serializeLatency) {
+            this.events = events;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.serializeLatency = serializeLatency;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // per-event serialize latency in ns
+        public Histogram getSerializeLatency() {
+            return serializeLatency;
+        }
+
+        public double getEventsPerSecond() {
+            return events / (elapsedNanos / 1e9);
+        }
+
+        public double getBytesPerSecond() {
+            return bytes / (elapsedNanos / 1e9);
+        }
+
+        public Stats print(String name, PrintStream out) {
+            out.println(String.format("%s: wrote %d events (%d bytes) in %.1f ms: %.1f events/s, %.2f MB/s", name,
+                    events, bytes, elapsedNanos / 1e6, getEventsPerSecond(), getBytesPerSecond() / (1024 * 1024)));
+            if (serializeLatency.getTotalCount() > 0) {
+                out.println(String.format("%s: serialize latency (us): p50 %.1f, p99 %.1f, p999 %.1f, max %.1f", name,
+                        serializeLatency.getValueAtPercentile(50) / 1e3, serializeLatency.getValueAtPercentile(99) / 1e3,
+                        serializeLatency.getValueAtPercentile(99.9) / 1e3, serializeLatency.getMaxValue() / 1e3));
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package qe;
+
+import io.pravega.client.ClientConfig;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.admin.impl.StreamManagerImpl;
+import io.pravega.client.stream.*;
+import io.pravega.schemaregistry.client.SchemaRegistryClient;
+import io.pravega.schemaregistry.client.SchemaRegistryClientConfig;
+import io.pravega.schemaregistry.client.SchemaRegistryClientFactory;
+import io.pravega.schemaregistry.contract.data.Compatibility;
+import io.pravega.schemaregistry.contract.data.GroupProperties;
+import io.pravega.schemaregistry.contract.data.SerializationFormat;
+import io.pravega.schemaregistry.serializer.avro.impl.AvroSerializerFactory;
+import io.pravega.schemaregistry.serializer.avro.schemas.AvroSchema;
+import io.pravega.schemaregistry.serializer.shared.impl.SerializerConfig;
+import io.pravega.schemaregistry.serializers.SerializerFactory;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Sustained ingest through each Avro serializer with a bounded window of outstanding writes.
+// -Dwriter.events (default 100000), -Dwriter.maxInFlight (default 1000), -Dwriter.flushEvery (default 0).
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class WriterThroughputTests {
+    private static String schemaRegistryURI = InMemorySchemaRegistry.resolveUri("http://10.243.41.62:9092");
+    private static String controllerURI = "tcp://10.243.41.90:9090";
+    private static ClientConfig clientConfig;
+    private static SchemaRegistryClient schemaRegistryClient;
+    private static EventStreamClientFactory clientFactory;
+    private static final String scope = "scope" + System.currentTimeMillis();
+    private static final String stream = "stream";
+    private static final String groupId = scope+"-"+stream;
+    private static final long EVENTS = Long.getLong("writer.events", 100000);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("writer.maxInFlight", 1000);
+    private static final int FLUSH_EVERY = Integer.getInteger("writer.flushEvery", 0);
+    private static final Schema SCHEMA = SchemaBuilder
+            .record("Payment")
+            .fields()
+            .requiredString("id")
+            .requiredLong("amount")
+            .requiredString("currency")
+            .requiredString("note")
+            .endRecord();
+    private static final AvroSchema<GenericRecord> AVRO_SCHEMA = AvroSchema.ofRecord(SCHEMA);
+
+    @BeforeClass
+    public static void setUp() {
+        clientConfig = ClientConfig.builder().controllerURI(URI.create(controllerURI)).build();
+        schemaRegistryClient = SchemaRegistryClientFactory.withDefaultNamespace(SchemaRegistryClientConfig.builder().schemaRegistryUri(URI.create(schemaRegistryURI)).build());
+        StreamManager streamManager = new StreamManagerImpl(clientConfig);
+        streamManager.createScope(scope);
+        streamManager.createStream(scope, stream, StreamConfiguration.builder().scalingPolicy(ScalingPolicy.fixed(1)).build());
+        schemaRegistryClient.addGroup(groupId, new GroupProperties(SerializationFormat.Avro, Compatibility.backward(), false));
+        clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        clientFactory.close();
+        schemaRegistryClient.removeGroup(groupId);
+    }
+
+    @Test
+    public void test1_avroSerializerFactorySerializer() throws InterruptedException {
+        WriterHarness.Stats stats = write(config -> AvroSerializerFactory.serializer(config, AVRO_SCHEMA), MAX_IN_FLIGHT, EVENTS)
+                .print("AvroSerializerFactory.serializer", System.out);
+        assertWritten(EVENTS, stats);
+    }
+
+    @Test
+    public void test2_serializerFactoryAvroSerializer() throws InterruptedException {
+        WriterHarness.Stats stats = write(config -> SerializerFactory.avroSerializer(config, AVRO_SCHEMA), MAX_IN_FLIGHT, EVENTS)
+                .print("SerializerFactory.avroSerializer", System.out);
+        assertWritten(EVENTS, stats);
+    }
+
+    @Test
+    public void test3_joinPerEventBaseline() throws InterruptedException {
+        // one event in flight is what writeEvent(...).join() in the functional suites amounts to
+        long events = Math.min(EVENTS, 1000);
+        WriterHarness.Stats stats = write(config -> SerializerFactory.avroSerializer(config, AVRO_SCHEMA), 1, events)
+                .print("SerializerFactory.avroSerializer, 1 in flight", System.out);
+        assertWritten(events, stats);
+    }
+
+    private WriterHarness.Stats write(Function<SerializerConfig, Serializer<GenericRecord>> serializerFactory, int maxInFlight, long events)
+            throws InterruptedException {
+        SerializerConfig serializerConfig = SerializerConfig.builder()
+                .groupId(groupId)
+                .registerSchema(true)
+                .registryClient(schemaRegistryClient)
+                .build();
+        MeteredSerializer<GenericRecord> serializer = new MeteredSerializer<>(serializerFactory.apply(serializerConfig));
+        try (EventStreamWriter<GenericRecord> writer = clientFactory.createEventWriter(stream, serializer, EventWriterConfig.builder().build())) {
+            return new WriterHarness<>(writer, serializer)
+                    .maxInFlight(maxInFlight)
+                    .flushEvery(FLUSH_EVERY)
+                    .write(events, WriterThroughputTests::payment);
+        }
+    }
+
+    private static GenericRecord payment(long i) {
+        return new GenericRecordBuilder(SCHEMA)
+                .set("id", "payment-" + i)
+                .set("amount", i * 100)
+                .set("currency", "EUR")
+                .set("note", "written by WriterThroughputTests")
+                .build();
+    }
+
+    // checks what the serializer produced rather than the count the harness was asked for: one serialize call per
+    // event, each at least as long as the smallest Avro body (payment 0) without the registry header
+    private static void assertWritten(long events, WriterHarness.Stats stats) {
+        assertEquals("serialized events", events, stats.getSerializeLatency().getTotalCount());
+        long minimum = events * avroBodySize(payment(0));
+        assertTrue("serialized " + stats.getBytes() + " bytes, expected at least " + minimum, stats.getBytes() >= minimum);
+    }
+
+    private static int avroBodySize(GenericRecord record) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+            new GenericDatumWriter<GenericRecord>(SCHEMA).write(record, encoder);
+            encoder.flush();
+            return out.size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package qe;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.google.common.collect.ImmutableMap;
+import io.pravega.schemaregistry.contract.data.CodecType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+// Zstandard block codec with optional trained dictionaries, for small repetitive records that compress poorly on
+// their own. Dictionaries live in the group properties, which are set when the group is created:
+//   zstd.dictionary.<id> - base64 dictionary bytes; keep every dictionary that events in the stream were written with
+//   zstd.dictionaryId    - id of the dictionary new events are written with
+// Every frame written with a dictionary names its id in the frame header, and decode looks the dictionary up by that
+// id. Codec types are kept by name per group, so a writer's codec type properties would be whichever writer
+// registered application/x-zstd first; plain and dictionary writers, and rotated dictionaries, share one codec type.
+//
+//   ImmutableMap<String, String> properties = ZstdCodec.groupProperties(ZstdCodec.trainDictionary(samples, 16 * 1024));
+//   client.addGroup(groupId, new GroupProperties(SerializationFormat.Avro, Compatibility.backward(), false, properties));
+//   ZstdCodec codec = ZstdCodec.fromGroupProperties(client.getGroupProperties(groupId).getProperties(), 3);
+public class ZstdCodec extends BlockCodec {
+    public static final String NAME = "application/x-zstd";
+    public static final CodecType CODEC_TYPE = new CodecType(NAME);
+    public static final String DICTIONARY_ID = "zstd.dictionaryId";
+    public static final String DICTIONARY_PREFIX = "zstd.dictionary.";
+    public static final int DEFAULT_LEVEL = 3;
+    // ZSTD_FRAMEHEADERSIZE_MAX: magic number, descriptor, window, dictionary id and content size
+    private static final int FRAME_HEADER_BYTES = 18;
+    private static final ThreadLocal<byte[]> FRAME_HEADER = ThreadLocal.withInitial(() -> new byte[FRAME_HEADER_BYTES]);
+
+    private final int level;
+    private final ZstdDictCompress encodeDictionary;
+    private final Map<String, ZstdDictDecompress> decodeDictionaries;
+
+    public ZstdCodec() {
+        this(DEFAULT_LEVEL);
+    }
+
+    public ZstdCodec(int level) {
+        this(level, null, new HashMap<>());
+    }
+
+    public ZstdCodec(int level, byte[] dictionary) {
+        this(level, dictionary, dictionaries(dictionary));
+    }
+
+    private ZstdCodec(int level, byte[] dictionary, Map<String, ZstdDictDecompress> decodeDictionaries) {
+        this.level = level;
+        this.decodeDictionaries = decodeDictionaries;
+        this.encodeDictionary = dictionary == null ? null : new ZstdDictCompress(dictionary, level);
+    }
+
+    // Encodes with the dictionary named by zstd.dictionaryId, if any, and decodes with every zstd.dictionary.<id>.
+    public static ZstdCodec fromGroupProperties(Map<String, String> groupProperties, int level) {
+        Map<String, ZstdDictDecompress> decodeDictionaries = new HashMap<>();
+        byte[] encodeDictionary = null;
+        String encodeId = groupProperties.get(DICTIONARY_ID);
+        for (Map.Entry<String, String> property : groupProperties.entrySet()) {
+            if (property.getKey().startsWith(DICTIONARY_PREFIX)) {
+                String id = property.getKey().substring(DICTIONARY_PREFIX.length());
+                byte[] dictionary = Base64.getDecoder().decode(property.getValue());
+                decodeDictionaries.put(id, new ZstdDictDecompress(dictionary));
+                if (id.equals(encodeId)) {
+                    encodeDictionary = dictionary;
+                }
+            }
+        }
+        if (encodeId != null && encodeDictionary == null) {
+            throw new IllegalArgumentException("Group properties have no " + DICTIONARY_PREFIX + encodeId);
+        }
+        return new ZstdCodec(level, encodeDictionary, decodeDictionaries);
+    }
+
+    // Group properties that make fromGroupProperties encode with this dictionary.
+    public static ImmutableMap<String, String> groupProperties(byte[] dictionary) {
+        String id = dictionaryId(dictionary);
+        return ImmutableMap.of(DICTIONARY_PREFIX + id, Base64.getEncoder().encodeToString(dictionary), DICTIONARY_ID, id);
+    }
+
+    // Trains a dictionary of at most dictionarySize bytes from sample events, e.g. a few thousand serialized records.
+    public static byte[] trainDictionary(Iterable<byte[]> samples, int dictionarySize) {
+        int sampleBytes = 0;
+        for (byte[] sample : samples) {
+            sampleBytes += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer(sampleBytes, dictionarySize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return trainer.trainSamples();
+    }
+
+    public static String dictionaryId(byte[] dictionary) {
+        long id = Zstd.getDictIdFromDict(dictionary);
+        if (id == 0) {
+            throw new IllegalArgumentException("Not a zstd dictionary");
+        }
+        return Long.toString(id);
+    }
+
+    private static Map<String, ZstdDictDecompress> dictionaries(byte[] dictionary) {
+        Map<String, ZstdDictDecompress> dictionaries = new HashMap<>();
+        dictionaries.put(dictionaryId(dictionary), new ZstdDictDecompress(dictionary));
+        return dictionaries;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CodecType getCodecType() {
+        return CODEC_TYPE;
+    }
+
+    @Override
+    int compress(byte[] src, int srcOffset, int length, byte[] dst) {
+        long result = encodeDictionary == null
+                ? Zstd.compressByteArray(dst, 0, dst.length, src, srcOffset, length, level)
+                : Zstd.compressFastDict(dst, 0, src, srcOffset, length, encodeDictionary);
+        if (Zstd.isError(result)) {
+            throw new IllegalStateException(getName() + ": " + Zstd.getErrorName(result));
+        }
+        return (int) result;
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    void decompress(byte[] src, int srcOffset, int length, byte[] dst, Map<String, String> properties) throws IOException {
+        long dictionaryId = dictionaryIdFromFrame(src, srcOffset, length);
+        long result;
+        if (dictionaryId == 0) {
+            result = Zstd.decompressByteArray(dst, 0, dst.length, src, srcOffset, length);
+        } else {
+            String id = Long.toString(dictionaryId);
+            ZstdDictDecompress dictionary = decodeDictionaries.get(id);
+            if (dictionary == null) {
+                throw new IOException(getName() + ": no dictionary " + id + ", known " + decodeDictionaries.keySet());
+            }
+            result = Zstd.decompressFastDict(dst, 0, src, srcOffset, length, dictionary);
+        }
+        if (Zstd.isError(result)) {
+            throw new IOException(getName() + ": " + Zstd.getErrorName(result));
+        }
+        if (result != dst.length) {
+            throw new IOException(getName() + ": expected " + dst.length + " bytes but decompressed " + result);
+        }
+    }
+
+    // 0 for a frame written without a dictionary; the header is copied because zstd-jni reads it from offset 0
+    private static long dictionaryIdFromFrame(byte[] src, int srcOffset, int length) {
+        byte[] header = FRAME_HEADER.get();
+        int copied = Math.min(length, FRAME_HEADER_BYTES);
+        System.arraycopy(src, srcOffset, header, 0, copied);
+        Arrays.fill(header, copied, FRAME_HEADER_BYTES, (byte) 0);
+        return Zstd.getDictIdFromFrame(header);
+    }
+}